@@ -0,0 +1,120 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the typed getters on {@link ConfigurationProperties} for keys that are
+ * present, missing or only present in the global configuration, along with the same lookups against
+ * a frozen snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationPropertiesJMH {
+
+  private ConfigurationProperties properties;
+  private FrozenConfigurationProperties frozen;
+
+  @Setup
+  public void setup() {
+    Map<String, Object> global = new LinkedHashMap<>();
+    global.put("globalLong", "64K");
+    global.put("globalBoolean", "true");
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("stringValue", "localhost");
+    map.put("longValue", "16M");
+    map.put("intValue", 1024.0);
+    map.put("doubleValue", "3.1415");
+    map.put("booleanValue", "true");
+    properties = new ConfigurationProperties(map);
+    properties.setGlobal(new ConfigurationProperties(global));
+    frozen = properties.freeze();
+  }
+
+  @Benchmark
+  public String getPropertyHit() {
+    return properties.getProperty("stringValue", "none");
+  }
+
+  @Benchmark
+  public long getLongHit() {
+    return properties.getLongProperty("longValue", 0);
+  }
+
+  @Benchmark
+  public int getIntHit() {
+    return properties.getIntProperty("intValue", 0);
+  }
+
+  @Benchmark
+  public double getDoubleHit() {
+    return properties.getDoubleProperty("doubleValue", 0);
+  }
+
+  @Benchmark
+  public boolean getBooleanHit() {
+    return properties.getBooleanProperty("booleanValue", false);
+  }
+
+  @Benchmark
+  public long getLongMiss() {
+    return properties.getLongProperty("missingValue", 10);
+  }
+
+  @Benchmark
+  public String getPropertyMiss() {
+    return properties.getProperty("missingValue", "none");
+  }
+
+  @Benchmark
+  public long getLongGlobal() {
+    return properties.getLongProperty("globalLong", 0);
+  }
+
+  @Benchmark
+  public boolean getBooleanGlobal() {
+    return properties.getBooleanProperty("globalBoolean", false);
+  }
+
+  @Benchmark
+  public long frozenGetLongHit() {
+    return frozen.getLongProperty("longValue", 0);
+  }
+
+  @Benchmark
+  public long frozenGetLongMiss() {
+    return frozen.getLongProperty("missingValue", 10);
+  }
+
+  @Benchmark
+  public long frozenGetLongGlobal() {
+    return frozen.getLongProperty("globalLong", 0);
+  }
+}
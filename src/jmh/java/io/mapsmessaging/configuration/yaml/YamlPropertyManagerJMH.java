@@ -0,0 +1,122 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.yaml;
+
+import com.google.gson.JsonObject;
+import io.mapsmessaging.configuration.PropertyManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a YAML document into a {@link YamlPropertyManager} and the two export paths,
+ * {@link PropertyManager#getPropertiesJSON(String)} and packing the configuration back into plain maps.
+ * The document size is a parameter so both a typical configuration file and a multi megabyte
+ * document are covered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YamlPropertyManagerJMH {
+
+  private static final String NAME = "BenchmarkConfig";
+
+  /**
+   * Number of generated sections, 10 is roughly the size of a normal configuration file and 10000
+   * produces a document of just over 2MB, which stays below the default SnakeYAML document limit.
+   */
+  @Param({"10", "10000"})
+  public int sections;
+
+  private String yaml;
+  private BenchmarkPropertyManager manager;
+
+  @Setup
+  public void setup() {
+    yaml = buildDocument(sections);
+    manager = new BenchmarkPropertyManager();
+    manager.parseAndLoadYaml(NAME, yaml);
+  }
+
+  @Benchmark
+  public BenchmarkPropertyManager parseAndLoadYaml() {
+    BenchmarkPropertyManager loader = new BenchmarkPropertyManager();
+    loader.parseAndLoadYaml(NAME, yaml);
+    return loader;
+  }
+
+  @Benchmark
+  public JsonObject getPropertiesJSON() {
+    return manager.getPropertiesJSON(NAME);
+  }
+
+  @Benchmark
+  public Map<String, Object> getMap() {
+    return manager.getProperties(NAME).getMap();
+  }
+
+  private static String buildDocument(int sections) {
+    StringBuilder sb = new StringBuilder(sections * 256);
+    sb.append("---\n").append(NAME).append(":\n");
+    sb.append("  global:\n");
+    sb.append("    timeout: 30s\n");
+    sb.append("    retries: 3\n");
+    for (int x = 0; x < sections; x++) {
+      sb.append("  section").append(x).append(":\n");
+      sb.append("    name: section-").append(x).append('\n');
+      sb.append("    enabled: ").append(x % 2 == 0).append('\n');
+      sb.append("    bufferSize: ").append(x % 64).append("K\n");
+      sb.append("    ratio: ").append(x / 3.0).append('\n');
+      sb.append("    endpoint:\n");
+      sb.append("      host: host").append(x).append(".example.com\n");
+      sb.append("      port: ").append(1024 + x).append('\n');
+      sb.append("    entries:\n");
+      for (int y = 0; y < 2; y++) {
+        sb.append("      - key: entry").append(y).append('\n');
+        sb.append("        value: ").append(x * y).append('\n');
+      }
+    }
+    return sb.toString();
+  }
+
+  public static final class BenchmarkPropertyManager extends YamlPropertyManager {
+
+    @Override
+    protected void parseAndLoadYaml(String propertyName, String yamlString) {
+      super.parseAndLoadYaml(propertyName, yamlString);
+    }
+
+    @Override
+    public void load() {
+      // Loaded directly by the benchmark
+    }
+
+    @Override
+    protected List<String> getKeys(String lookup) {
+      return Collections.emptyList();
+    }
+  }
+}
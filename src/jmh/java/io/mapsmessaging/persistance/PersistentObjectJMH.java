@@ -0,0 +1,83 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures write and read round trips of the {@link PersistentObject} primitives through in memory
+ * streams, so the numbers reflect the encoding cost rather than any I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentObjectJMH extends PersistentObject {
+
+  @Param({"16", "4096"})
+  public int size;
+
+  private String text;
+  private byte[] data;
+  private ByteArrayOutputStream outputStream;
+
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder(size);
+    for (int x = 0; x < size; x++) {
+      sb.append((char) ('a' + (x % 26)));
+    }
+    text = sb.toString();
+    data = new byte[size];
+    new Random(size).nextBytes(data);
+    outputStream = new ByteArrayOutputStream(size * 2 + 64);
+  }
+
+  @Benchmark
+  public long intAndLongRoundTrip() throws IOException {
+    outputStream.reset();
+    writeInt(outputStream, 0x12345678);
+    writeLong(outputStream, 0x0123456789ABCDEFL);
+    ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+    return readInt(inputStream) + readLong(inputStream);
+  }
+
+  @Benchmark
+  public String stringRoundTrip() throws IOException {
+    outputStream.reset();
+    writeString(outputStream, text);
+    return readString(new ByteArrayInputStream(outputStream.toByteArray()));
+  }
+
+  @Benchmark
+  public byte[] byteArrayRoundTrip() throws IOException {
+    outputStream.reset();
+    writeByteArray(outputStream, data);
+    return readByteArray(new ByteArrayInputStream(outputStream.toByteArray()));
+  }
+}
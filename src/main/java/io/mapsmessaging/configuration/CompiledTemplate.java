@@ -0,0 +1,165 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A configuration value that has been split once into literal text and <code>{{name}}</code>
+ * variables. Variables that map to registered paths are folded into the literal text when the
+ * template is compiled, the remaining ones are looked up in the system properties and environment
+ * each time the template is rendered. A template without such variables is rendered once, at
+ * compile time, and simply returns the same string thereafter.
+ * <p>
+ * A rendered path is scanned again for as long as substitution keeps changing it, so a property
+ * whose value itself holds a <code>{{name}}</code> variable is expanded in turn.
+ */
+final class CompiledTemplate {
+
+  private static final String START = "{{";
+  private static final String END = "}}";
+
+  private final String constant;
+  private final String[] literals;
+  private final String[] variables;
+  private final boolean normalise;
+
+  private CompiledTemplate(List<String> literals, List<String> variables, boolean normalise) {
+    this.normalise = normalise;
+    if (variables.isEmpty() && !(normalise && hasVariable(literals.get(0)))) {
+      String value = literals.get(0);
+      constant = normalise ? normalisePath(value) : value;
+      this.literals = null;
+      this.variables = null;
+    } else {
+      constant = null;
+      this.literals = literals.toArray(new String[0]);
+      this.variables = variables.toArray(new String[0]);
+    }
+  }
+
+  /**
+   * Compiles a value using the path rules, every variable is substituted, registered paths first and
+   * then system properties or environment variables, and the result has its separators normalised.
+   */
+  static CompiledTemplate compilePath(String raw, Map<String, String> pathLookups) {
+    List<String> literals = new ArrayList<>();
+    List<String> variables = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    int pos = 0;
+    int start = raw.indexOf(START);
+    while (start >= 0) {
+      int end = raw.indexOf(END, start + START.length());
+      if (end < 0) {
+        break;
+      }
+      literal.append(raw, pos, start);
+      String name = raw.substring(start + START.length(), end);
+      String registered = pathLookups.get(name);
+      if (registered != null) {
+        literal.append(registered);
+      } else {
+        literals.add(literal.toString());
+        literal.setLength(0);
+        variables.add(name);
+      }
+      pos = end + END.length();
+      start = raw.indexOf(START, pos);
+    }
+    literal.append(raw, pos, raw.length());
+    literals.add(literal.toString());
+    return new CompiledTemplate(literals, variables, true);
+  }
+
+  /**
+   * Compiles a value using the non-path rules, only the first variable found is substituted, in every
+   * place it occurs, any other variables are left as they are.
+   */
+  static CompiledTemplate compileSubstitution(String raw) {
+    List<String> literals = new ArrayList<>();
+    List<String> variables = new ArrayList<>();
+    int start = raw.indexOf(START);
+    int end = start >= 0 ? raw.indexOf(END, start + START.length()) : -1;
+    if (end < 0) {
+      literals.add(raw);
+      return new CompiledTemplate(literals, variables, false);
+    }
+    String name = raw.substring(start + START.length(), end);
+    String token = START + name + END;
+    int pos = 0;
+    while (start >= 0) {
+      literals.add(raw.substring(pos, start));
+      variables.add(name);
+      pos = start + token.length();
+      start = raw.indexOf(token, pos);
+    }
+    literals.add(raw.substring(pos));
+    return new CompiledTemplate(literals, variables, false);
+  }
+
+  String render() {
+    if (constant != null) {
+      return constant;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int x = 0; x < variables.length; x++) {
+      sb.append(literals[x]);
+      sb.append(SystemProperties.getInstance().locateProperty(variables[x], ""));
+    }
+    sb.append(literals[variables.length]);
+    String result = sb.toString();
+    if (variables.length > 0 && result.indexOf('"') >= 0) {
+      result = result.replace("\"", "");
+    }
+    if (!normalise) {
+      return result;
+    }
+    String previous = null;
+    while (hasVariable(result) && !result.equals(previous)) {
+      previous = result;
+      result = EnvironmentConfig.getInstance().scanForNonStandardSub(result);
+    }
+    return normalisePath(result);
+  }
+
+  private static boolean hasVariable(String value) {
+    return value.contains(START) && value.contains(END);
+  }
+
+  static String normalisePath(String path) {
+    String updated = path;
+    while (updated.contains("//")) {
+      updated = updated.replace("//", File.separator);
+    }
+    while (updated.contains("\\\\")) {
+      updated = updated.replace("\\\\", File.separator);
+    }
+    while (updated.contains("/\\")) {
+      updated = updated.replace("/\\", File.separator);
+    }
+    while (updated.contains("\\/")) {
+      updated = updated.replace("\\/", File.separator);
+    }
+    return updated;
+  }
+}
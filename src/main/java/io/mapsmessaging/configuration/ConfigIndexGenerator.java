@@ -0,0 +1,120 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Build time helper that writes the {@value ResourceList#CONFIG_INDEX} file for a resource directory,
+ * so that at runtime the configuration resources in the resulting jar can be found without scanning
+ * every entry. It is intended to be run after the resources have been copied, for example from the
+ * exec-maven-plugin in the <code>process-resources</code> phase:
+ * <pre>
+ *   java io.mapsmessaging.configuration.ConfigIndexGenerator target/classes [pattern]
+ * </pre>
+ * The pattern is matched against the path relative to the directory and defaults to every
+ * <code>.yaml</code> file.
+ */
+public final class ConfigIndexGenerator {
+
+  public static final String DEFAULT_PATTERN = ".*\\.yaml";
+
+  private ConfigIndexGenerator() {
+  }
+
+  @SuppressWarnings("java:S106") // command line tool, the console is the right place for the output
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: ConfigIndexGenerator <resource directory> [pattern]");
+      System.exit(1);
+    }
+    Pattern pattern = Pattern.compile(args.length > 1 ? args[1] : DEFAULT_PATTERN);
+    File root = new File(args[0]);
+    List<String> resources = generate(root, pattern);
+    System.out.println("Indexed " + resources.size() + " configuration resources in " + new File(root, ResourceList.CONFIG_INDEX));
+  }
+
+  /**
+   * Scans the directory and writes the index file into it, replacing any existing one.
+   *
+   * @param root    the root of the resources, the index is written to its META-INF directory
+   * @param pattern the pattern the relative resource paths must match
+   * @return the resources written to the index
+   * @throws IOException if the directory does not exist or the index could not be written
+   */
+  public static List<String> generate(@NonNull @NotNull File root, @NonNull @NotNull Pattern pattern) throws IOException {
+    List<String> resources = scan(root, pattern);
+    File index = new File(root, ResourceList.CONFIG_INDEX);
+    Files.createDirectories(index.getParentFile().toPath());
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(index.toPath(), StandardCharsets.UTF_8))) {
+      writer.println("# Generated by ConfigIndexGenerator, the configuration resources in this archive");
+      for (String resource : resources) {
+        writer.println(resource);
+      }
+    }
+    return resources;
+  }
+
+  /**
+   * Lists the resources under the directory that match the pattern, as '/' separated paths relative
+   * to it, sorted so the index is reproducible.
+   *
+   * @param root    the root of the resources
+   * @param pattern the pattern the relative resource paths must match
+   * @return the matching resources
+   * @throws IOException if the directory does not exist
+   */
+  public static List<String> scan(@NonNull @NotNull File root, @NonNull @NotNull Pattern pattern) throws IOException {
+    if (!root.isDirectory()) {
+      throw new IOException("No such directory " + root);
+    }
+    List<String> resources = new ArrayList<>();
+    scan(root, "", pattern, resources);
+    resources.remove(ResourceList.CONFIG_INDEX);
+    Collections.sort(resources);
+    return resources;
+  }
+
+  private static void scan(File directory, String prefix, Pattern pattern, List<String> resources) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = prefix + file.getName();
+      if (file.isDirectory()) {
+        scan(file, name + "/", pattern, resources);
+      } else if (pattern.matcher(name).matches()) {
+        resources.add(name);
+      }
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration;
+
+import java.util.List;
+
+/**
+ * Notified when a configuration is reloaded and some of its entries have changed.
+ */
+@FunctionalInterface
+public interface ConfigurationChangeListener {
+
+  /**
+   * @param name         the name of the configuration that was reloaded
+   * @param changedPaths the paths that were added, removed or replaced, relative to the named
+   *                     configuration and in the form accepted by {@link ConfigurationProperties#getByPath(String)},
+   *                     entries of the global configuration are prefixed with <code>global.</code>
+   */
+  void configurationChanged(String name, List<String> changedPaths);
+}
@@ -29,6 +29,7 @@ import lombok.Setter;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static io.mapsmessaging.logging.ConfigLogMessages.PROPERTY_SMART_QUOTES_DETECTED;
@@ -38,21 +39,48 @@ import static io.mapsmessaging.logging.LogMessages.PROPERTY_MANAGER_ENTRY_LOOKUP
 @SuppressWarnings("java:S3740")
 public class ConfigurationProperties {
 
+  private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+  // Per lookup logging boxes values and builds argument arrays, so it is only done on demand
+  private static volatile boolean lookupTracing = Boolean.getBoolean("ConfigLookupTrace");
+
   private final Logger logger = LoggerFactory.getLogger(ConfigurationProperties.class);
   private final Map<String, Object> map;
+  private final Map<String, TypedValue> typedCache;
   @Getter
   @Setter
   private String source;
   @Setter
   private ConfigurationProperties global;
+  private volatile Map<String, Object> pathIndex;
+  @Getter
+  private final boolean lazy;
+  private volatile boolean deferred;
 
   public ConfigurationProperties() {
+    this(false);
+  }
+
+  /**
+   * @param lazy if true nested maps and lists added to this configuration are kept as they are and
+   *             only converted into configurations the first time they are read, the configurations
+   *             created from them are lazy as well
+   */
+  public ConfigurationProperties(boolean lazy) {
     super();
     map = new LinkedHashMap<>();
+    typedCache = new ConcurrentHashMap<>();
+    this.lazy = lazy;
   }
 
   public ConfigurationProperties(Map<String, Object> inMap) {
+    this(inMap, false);
+  }
+
+  public ConfigurationProperties(Map<String, Object> inMap, boolean lazy) {
     map = new LinkedHashMap<>();
+    typedCache = new ConcurrentHashMap<>();
+    this.lazy = lazy;
     putAll(inMap);
 
     Object globalObject = inMap.get("global");
@@ -62,15 +90,10 @@ public class ConfigurationProperties {
   }
 
   public Object get(String key) {
-    Object val = map.get(key);
+    Object val = LazySection.resolve(map.get(key));
     if (val == null && global != null) {
       val = global.get(key);
     }
-    if (val instanceof JsonObject jsonObject) {
-      Type type = new TypeToken<Map<String, Object>>() {}.getType();
-      Map<String, Object> map1 = SystemProperties.getInstance().getGson().fromJson(jsonObject, type);
-      return new ConfigurationProperties(map1);
-    }
     return val;
   }
 
@@ -82,20 +105,24 @@ public class ConfigurationProperties {
   public String getProperty(String key, String defaultValue) {
     Object val = get(key, defaultValue);
     if (val != null) {
-      String response = val.toString();
-      String check = key.toLowerCase();
-      if (check.contains("file") ||
-          check.contains("directory") ||
-          check.contains("path")
-      ) {
-        response = EnvironmentConfig.getInstance().translatePath(response);
-      }
-      response = EnvironmentConfig.getInstance().scanForNonStandardSub(response);
-      return response;
+      return resolveString(key, val);
     }
     return null;
   }
 
+  // Applies the path and variable substitution to a value that has already had its quotes fixed
+  static String resolveString(String key, Object val) {
+    String response = val.toString();
+    String check = key.toLowerCase();
+    if (check.contains("file") ||
+        check.contains("directory") ||
+        check.contains("path")
+    ) {
+      response = EnvironmentConfig.getInstance().translatePath(response);
+    }
+    return EnvironmentConfig.getInstance().scanForNonStandardSub(response);
+  }
+
   public int getThreadCount(String key, int defaultValue) {
     String value = getProperty(key, String.valueOf(defaultValue)).trim();
 
@@ -137,63 +164,128 @@ public class ConfigurationProperties {
 
 
   public boolean getBooleanProperty(String key, boolean defaultValue) {
-    return asBoolean(get(key, defaultValue));
+    TypedValue typed = getTyped(key);
+    if (typed == null) {
+      return missed(key, defaultValue);
+    }
+    return typed.isBooleanValue();
   }
 
   public long getLongProperty(String key, long defaultValue) {
-    try {
-      return asLong(get(key, defaultValue));
-    } catch (NumberFormatException e) {
-      return defaultValue;
+    TypedValue typed = getTyped(key);
+    if (typed == null) {
+      return missed(key, defaultValue);
     }
+    return typed.isLongValid() ? typed.getLongValue() : defaultValue;
   }
 
   public int getIntProperty(String key, int defaultValue) {
-    try {
-      return (int) asLong(get(key, defaultValue));
-    } catch (NumberFormatException e) {
-      return defaultValue;
+    TypedValue typed = getTyped(key);
+    if (typed == null) {
+      return (int) missed(key, defaultValue);
     }
+    return typed.isLongValid() ? (int) typed.getLongValue() : defaultValue;
   }
 
   public float getFloatProperty(String key, float defaultValue) {
-    try {
-      return (float) asDouble(get(key, defaultValue));
-    } catch (NumberFormatException e) {
-      return defaultValue;
+    TypedValue typed = getTyped(key);
+    if (typed == null) {
+      return (float) missed(key, defaultValue);
     }
+    return typed.isDoubleValid() ? (float) typed.getDoubleValue() : defaultValue;
   }
 
   public double getDoubleProperty(String key, double defaultValue) {
-    try {
-      return asDouble(get(key, defaultValue));
-    } catch (NumberFormatException e) {
-      return defaultValue;
+    TypedValue typed = getTyped(key);
+    if (typed == null) {
+      return missed(key, defaultValue);
     }
+    return typed.isDoubleValid() ? typed.getDoubleValue() : defaultValue;
+  }
+
+  /**
+   * Enables or disables the per lookup debug logging of every typed and string lookup. This is
+   * intended for diagnosing configuration issues, for ongoing monitoring use {@link LookupStatistics}.
+   *
+   * @param enabled true to log every lookup
+   */
+  public static void setLookupTracing(boolean enabled) {
+    lookupTracing = enabled;
+  }
+
+  public static boolean isLookupTracing() {
+    return lookupTracing;
+  }
+
+  // The parsed form is memoised per key and is only reused while the underlying value is the same
+  // instance, so a change in this map or in the global fallback is picked up on the next lookup
+  private TypedValue getTyped(String key) {
+    Object val = lookup(key);
+    if (val == null) {
+      return null;
+    }
+    TypedValue typed = typedCache.get(key);
+    if (typed == null || typed.getSource() != val) {
+      typed = new TypedValue(val, fixSmartQuotes(key, val));
+      typedCache.put(key, typed);
+    }
+    return typed;
   }
 
   private Object get(String key, Object defaultValue) {
-    Object val = get(key);
+    Object val = lookup(key);
     if (val != null) {
-      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP, key, val, "Main");
-    } else if (global != null) {
-      val = global.get(key);
-      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP, key, val, "Global");
+      return fixSmartQuotes(key, val);
     }
+    if (lookupTracing) {
+      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED, key, defaultValue);
+    }
+    return defaultValue;
+  }
 
-    if (val != null) {
-      if(val instanceof String string && string.startsWith("“") && string.endsWith("”")) {
-        String fix = string.substring(1, string.length() - 1);
-        logger.log(PROPERTY_SMART_QUOTES_DETECTED, key, string, fix);
-        val = fix;
-      }
-      return val;
+  private boolean missed(String key, boolean defaultValue) {
+    if (lookupTracing) {
+      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED, key, defaultValue);
     }
-    logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED, key, defaultValue);
     return defaultValue;
   }
 
-  private boolean asBoolean(Object value) {
+  private long missed(String key, long defaultValue) {
+    if (lookupTracing) {
+      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED, key, defaultValue);
+    }
+    return defaultValue;
+  }
+
+  private double missed(String key, double defaultValue) {
+    if (lookupTracing) {
+      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED, key, defaultValue);
+    }
+    return defaultValue;
+  }
+
+  private Object lookup(String key) {
+    Object val = get(key);
+    if (lookupTracing) {
+      logger.log(PROPERTY_MANAGER_ENTRY_LOOKUP, key, val, map.containsKey(key) ? "Main" : "Global");
+    }
+    LookupStatistics statistics = LookupStatistics.getInstance();
+    if (statistics.isEnabled()) {
+      statistics.record(key, val != null);
+    }
+    return val;
+  }
+
+  Object fixSmartQuotes(String key, Object val) {
+    if(val instanceof String string && string.startsWith("“") && string.endsWith("”")) {
+      String fix = string.substring(1, string.length() - 1);
+      logger.log(PROPERTY_SMART_QUOTES_DETECTED, key, string, fix);
+      return fix;
+    }
+    return val;
+  }
+
+  static boolean asBoolean(Object value) {
     if (value instanceof Boolean b) {
       return b;
     } else if (value instanceof String sval) {
@@ -208,7 +300,7 @@ public class ConfigurationProperties {
     return false;
   }
 
-  private long asLong(Object entry) {
+  static long asLong(Object entry) {
     if (entry instanceof Number eNum) {
       if (eNum instanceof Float fl) {
         return Math.round(fl);
@@ -239,7 +331,7 @@ public class ConfigurationProperties {
     throw new NumberFormatException("Unknown number format detected [" + entry + "]");
   }
 
-  private long computeMultiplier(String value) {
+  private static long computeMultiplier(String value) {
     long multiplier = 1L;
     String end = value.substring(value.length() - 1);
     if (end.equalsIgnoreCase("T")) {
@@ -254,7 +346,7 @@ public class ConfigurationProperties {
     return multiplier;
   }
 
-  private long parseTime(String value) {
+  private static long parseTime(String value) {
     long val = Long.MAX_VALUE;
     if (value.equalsIgnoreCase("weekly")) {
       val = TimeUnit.DAYS.toMillis(7);
@@ -266,7 +358,7 @@ public class ConfigurationProperties {
     return val;
   }
 
-  private double asDouble(Object entry) {
+  static double asDouble(Object entry) {
     if (entry instanceof Number num) {
       return num.doubleValue();
     } else if (entry instanceof String str) {
@@ -275,6 +367,101 @@ public class ConfigurationProperties {
     throw new NumberFormatException("Unknown number format detected [" + entry + "]");
   }
 
+  /**
+   * Resolves a dotted path, such as <code>protocols.mqtt.maxInFlight</code> or
+   * <code>interfaces[2].endPoint.port</code>, through nested configurations and lists.
+   * If a path index has been built the lookup is a single hash lookup, otherwise, or if the path
+   * is not in the index, each level is walked with the usual global fallback.
+   *
+   * @param path the dotted path, list entries are addressed with [index]
+   * @return the value found at the path or null if it does not resolve
+   */
+  public Object getByPath(String path) {
+    Map<String, Object> index = pathIndex;
+    if (index != null) {
+      Object val = index.get(path);
+      if (val != null) {
+        return val;
+      }
+    }
+    return walkPath(path);
+  }
+
+  /**
+   * Builds the flattened path index used by {@link #getByPath(String)}. Any change made through
+   * this instance discards the index, changes made directly to nested configurations are not
+   * tracked so the index should be rebuilt after such edits.
+   */
+  public void buildPathIndex() {
+    Map<String, Object> index = new HashMap<>();
+    indexEntries(index, "", map);
+    pathIndex = index;
+  }
+
+  private static void indexEntries(Map<String, Object> index, String prefix, Map<String, Object> entries) {
+    for (Entry<String, Object> entry : entries.entrySet()) {
+      indexValue(index, prefix + entry.getKey(), LazySection.resolve(entry.getValue()));
+    }
+  }
+
+  private static void indexValue(Map<String, Object> index, String path, Object value) {
+    index.put(path, value);
+    if (value instanceof ConfigurationProperties cfg) {
+      indexEntries(index, path + ".", cfg.map);
+    } else if (value instanceof List list) {
+      for (int x = 0; x < list.size(); x++) {
+        indexValue(index, path + "[" + x + "]", list.get(x));
+      }
+    }
+  }
+
+  private Object walkPath(String path) {
+    Object current = this;
+    int start = 0;
+    int length = path.length();
+    while (start < length && current != null) {
+      char ch = path.charAt(start);
+      if (ch == '.') {
+        start++;
+      } else if (ch == '[') {
+        int end = path.indexOf(']', start);
+        if (end < 0 || !(current instanceof List list)) {
+          return null;
+        }
+        int idx;
+        try {
+          idx = Integer.parseInt(path.substring(start + 1, end).trim());
+        } catch (NumberFormatException e) {
+          return null;
+        }
+        current = (idx >= 0 && idx < list.size()) ? list.get(idx) : null;
+        start = end + 1;
+      } else {
+        int end = start;
+        while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+          end++;
+        }
+        if (!(current instanceof ConfigurationProperties cfg)) {
+          return null;
+        }
+        current = cfg.get(path.substring(start, end));
+        start = end;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Creates an immutable view of this configuration where the global fallback, smart quote
+   * correction, unit suffixes and typed conversions have all been resolved up front.
+   * Subsequent changes to this instance are not reflected in the returned view.
+   *
+   * @return a pre-resolved, read only copy of the current configuration
+   */
+  public FrozenConfigurationProperties freeze() {
+    return new FrozenConfigurationProperties(this);
+  }
+
   public boolean containsKey(String key) {
     if (!map.containsKey(key)) {
       if (global != null) {
@@ -285,6 +472,14 @@ public class ConfigurationProperties {
     return true;
   }
 
+  Set<String> resolvableKeys() {
+    Set<String> keys = new LinkedHashSet<>(map.keySet());
+    if (global != null) {
+      keys.addAll(global.resolvableKeys());
+    }
+    return keys;
+  }
+
   public ConfigurationProperties getGlobal() {
     if (global == null) {
       return (ConfigurationProperties) get("global");
@@ -325,49 +520,195 @@ public class ConfigurationProperties {
   }
 
   public Set<Entry<String, Object>> entrySet() {
+    materialise();
     return map.entrySet();
   }
 
   public Collection<Object> values() {
+    materialise();
     return map.values();
   }
 
+  // The entry and value views expose the stored values directly, so every lazy section is built first
+  private void materialise() {
+    if (deferred) {
+      for (Entry<String, Object> entry : map.entrySet()) {
+        if (entry.getValue() instanceof LazySection section) {
+          entry.setValue(section.get());
+        }
+      }
+      deferred = false;
+    }
+  }
+
   public Set<String> keySet() {
     return map.keySet();
   }
 
+  /**
+   * @param key the entry to check
+   * @return true if the entry is a nested section that has not been built yet
+   */
+  public boolean isDeferred(String key) {
+    return map.get(key) instanceof LazySection section && !section.isMaterialised();
+  }
+
+  /**
+   * Shares the global configuration with every configuration at the first level, as a load does,
+   * sections that have not been built yet are given it without being built.
+   *
+   * @param global the global configuration, may be null
+   */
+  public void shareGlobal(ConfigurationProperties global) {
+    for (Object value : map.values()) {
+      if (value instanceof LazySection section) {
+        section.updateGlobal(global);
+      } else {
+        applyGlobal(value, global);
+      }
+    }
+  }
+
+  static void applyGlobal(Object value, ConfigurationProperties global) {
+    if (value instanceof ConfigurationProperties cfg) {
+      cfg.setGlobal(global);
+    } else if (value instanceof List<?> list) {
+      for (Object entry : list) {
+        if (entry instanceof ConfigurationProperties cfg) {
+          cfg.setGlobal(global);
+        }
+      }
+    }
+  }
+
   public void replace(String key, Object val) {
     if(val instanceof ConfigurationProperties cfg) {
+      typedCache.remove(key);
+      pathIndex = null;
       map.replace(key, cfg);
     }
   }
 
   @SuppressWarnings("java:S3740")
   public void put(String key, Object val) {
-    if (val instanceof Map map1) {
-      ConfigurationProperties props = new ConfigurationProperties(map1);
-      props.setGlobal(global);
-      map.put(key, props);
+    typedCache.remove(key);
+    pathIndex = null;
+    if (val instanceof JsonObject jsonObject) {
+      // Convert once here rather than on every read of the entry
+      val = SystemProperties.getInstance().getGson().fromJson(jsonObject, MAP_TYPE);
+    }
+    if (val instanceof LazySection) {
+      deferred = true;
+      map.put(key, val);
+    } else if (lazy && (val instanceof Map || val instanceof List)) {
+      Object parsed = val;
+      LazySection section = new LazySection(parsed, parent -> parsed instanceof Map map1 ? createChild(map1, parent, true) : parseList((List) parsed, parent, true));
+      section.setGlobal(global);
+      deferred = true;
+      map.put(key, section);
+    } else if (val instanceof Map map1) {
+      map.put(key, createChild(map1, global, false));
     } else if (val instanceof List list1) {
-      List<Object> parsedList = new ArrayList<>();
-      for (Object list : list1) {
-        if (list instanceof Map map2) {
-          ConfigurationProperties props = new ConfigurationProperties(map2);
-          props.setGlobal(global);
-          parsedList.add(props);
-        }
-        else{
-          if(list instanceof ConfigurationProperties) {
-            parsedList.add(list);
-          }
-        }
-      }
-      map.put(key, parsedList);
+      map.put(key, parseList(list1, global, false));
     } else {
       map.put(key, val);
     }
   }
 
+  private static ConfigurationProperties createChild(Map map, ConfigurationProperties global, boolean lazy) {
+    ConfigurationProperties props = new ConfigurationProperties(map, lazy);
+    props.setGlobal(global);
+    return props;
+  }
+
+  private static List<Object> parseList(List list1, ConfigurationProperties global, boolean lazy) {
+    List<Object> parsedList = new ArrayList<>();
+    for (Object list : list1) {
+      if (list instanceof Map map2) {
+        parsedList.add(createChild(map2, global, lazy));
+      }
+      else{
+        if(list instanceof ConfigurationProperties) {
+          parsedList.add(list);
+        }
+      }
+    }
+    return parsedList;
+  }
+
+  public Object remove(String key) {
+    typedCache.remove(key);
+    pathIndex = null;
+    return LazySection.resolve(map.remove(key));
+  }
+
+  /**
+   * Updates this configuration in place so that its entries match <code>updated</code>, changing only
+   * what differs. Nested configurations, and lists of them with the same length, are compared entry
+   * by entry so unchanged configurations keep their identity, anything else that differs is replaced
+   * with the value from <code>updated</code>. The global configurations are not compared.
+   *
+   * @param updated the configuration to match
+   * @return the paths that were added, removed or replaced, in the form accepted by {@link #getByPath(String)}
+   */
+  public List<String> mergeChanges(ConfigurationProperties updated) {
+    List<String> changes = new ArrayList<>();
+    mergeChanges("", updated, changes);
+    return changes;
+  }
+
+  // Deferred sections are only built to be compared when their parsed forms differ, a replacement
+  // is added in the form it was parsed in, so it stays deferred until it is read
+  private void mergeChanges(String prefix, ConfigurationProperties updated, List<String> changes) {
+    for (Entry<String, Object> entry : updated.map.entrySet()) {
+      String key = entry.getKey();
+      Object parsed = entry.getValue();
+      Object stored = map.get(key);
+      if (stored instanceof LazySection section && parsed instanceof LazySection parsedSection && section.hasSameSource(parsedSection)) {
+        continue;
+      }
+      Object current = LazySection.resolve(stored);
+      if (current == null && !map.containsKey(key)) {
+        put(key, parsed);
+        changes.add(prefix + key);
+        continue;
+      }
+      Object value = LazySection.resolve(parsed);
+      if (current instanceof ConfigurationProperties cfg && value instanceof ConfigurationProperties cfgUpdate) {
+        cfg.mergeChanges(prefix + key + ".", cfgUpdate, changes);
+      } else if (!mergeList(prefix + key, current, value, changes) && !Objects.equals(current, value)) {
+        put(key, parsed);
+        changes.add(prefix + key);
+      }
+    }
+    Iterator<String> keys = map.keySet().iterator();
+    while (keys.hasNext()) {
+      String key = keys.next();
+      if (!updated.map.containsKey(key)) {
+        keys.remove();
+        typedCache.remove(key);
+        pathIndex = null;
+        changes.add(prefix + key);
+      }
+    }
+  }
+
+  // Lists of configurations with the same length are merged entry by entry, returns false if not
+  private static boolean mergeList(String path, Object current, Object value, List<String> changes) {
+    if (!(current instanceof List list) || !(value instanceof List listUpdate) || list.size() != listUpdate.size()) {
+      return false;
+    }
+    for (int x = 0; x < list.size(); x++) {
+      if (!(list.get(x) instanceof ConfigurationProperties) || !(listUpdate.get(x) instanceof ConfigurationProperties)) {
+        return false;
+      }
+    }
+    for (int x = 0; x < list.size(); x++) {
+      ((ConfigurationProperties) list.get(x)).mergeChanges(path + "[" + x + "].", (ConfigurationProperties) listUpdate.get(x), changes);
+    }
+    return true;
+  }
+
   public void putAll(Map<String, Object> copy) {
     for (Map.Entry<String, Object> entry : copy.entrySet()) {
       put(entry.getKey(), entry.getValue());
@@ -376,6 +717,8 @@ public class ConfigurationProperties {
 
   public void clear() {
     map.clear();
+    typedCache.clear();
+    pathIndex = null;
   }
 
   public int size() {
@@ -389,11 +732,12 @@ public class ConfigurationProperties {
   private Map<String, Object> packMap(Map<String, Object> map) {
     Map<String, Object> response = new LinkedHashMap<>();
     for (Entry<String, Object> entry : map.entrySet()) {
-      if (entry.getValue() instanceof ConfigurationProperties cfg) {
+      Object value = LazySection.resolve(entry.getValue());
+      if (value instanceof ConfigurationProperties cfg) {
         response.put(entry.getKey(), packMap(cfg.map));
-      } else if (entry.getValue() instanceof Map mapEntry) {
+      } else if (value instanceof Map mapEntry) {
         response.put(entry.getKey(), packMap(mapEntry));
-      } else if (entry.getValue() instanceof List list) {
+      } else if (value instanceof List list) {
         List<Object> replacement = new ArrayList<>();
         for (Object obj : list) {
           if (obj instanceof Map mapEntry) {
@@ -406,7 +750,7 @@ public class ConfigurationProperties {
         }
         response.put(entry.getKey(), replacement);
       } else {
-        response.put(entry.getKey(), entry.getValue());
+        response.put(entry.getKey(), value);
       }
     }
     return response;
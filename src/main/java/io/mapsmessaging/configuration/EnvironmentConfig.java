@@ -21,33 +21,63 @@ package io.mapsmessaging.configuration;
 
 import io.mapsmessaging.logging.Logger;
 import io.mapsmessaging.logging.LoggerFactory;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter
 @SuppressWarnings("java:S6548") // yes it is a singleton
 public class EnvironmentConfig {
+  private static final int MAX_CACHED_TEMPLATES = 1024;
+
   private final Logger logger = LoggerFactory.getLogger(EnvironmentConfig.class);
+  @Getter(AccessLevel.NONE)
   private final Map<String, String> pathLookups;
+  @Getter(AccessLevel.NONE)
+  private final Map<String, String> pathLookupView;
   private final Map<String, File> pathLocations;
 
+  // Values are tokenised once and the compiled form reused, the caches are cleared once full and
+  // whenever the registered paths change, since those are folded into the compiled templates. The
+  // generation moves on with every change so a template compiled against the old paths is not kept
+  @Getter(AccessLevel.NONE)
+  private final Map<String, CompiledTemplate> pathTemplates;
+  @Getter(AccessLevel.NONE)
+  private final Map<String, CompiledTemplate> substitutionTemplates;
+  @Getter(AccessLevel.NONE)
+  private final AtomicLong generation;
+
   private EnvironmentConfig() {
     pathLocations = new LinkedHashMap<>();
-    pathLookups = new LinkedHashMap<>();
+    pathLookups = Collections.synchronizedMap(new LinkedHashMap<>());
+    pathLookupView = new PathLookupView();
+    pathTemplates = new ConcurrentHashMap<>();
+    substitutionTemplates = new ConcurrentHashMap<>();
+    generation = new AtomicLong();
   }
 
   public static EnvironmentConfig getInstance() {
     return Holder.INSTANCE;
   }
 
+  /**
+   * @return the registered paths, changes made through the returned map are applied to the paths
+   * translated from then on
+   */
+  public Map<String, String> getPathLookups() {
+    return pathLookupView;
+  }
+
   public void clearAll() {
     pathLocations.clear();
     pathLookups.clear();
+    pathsChanged();
   }
 
   public boolean registerPath(EnvironmentPathLookup pathConfig) throws IOException {
@@ -55,6 +85,7 @@ public class EnvironmentConfig {
     if (path != null) {
       pathLookups.put(pathConfig.getName(), path);
       pathLocations.put(pathConfig.getName(), new File(path));
+      pathsChanged();
       return true;
     }
     return false;
@@ -78,41 +109,120 @@ public class EnvironmentConfig {
   }
 
   public String translatePath(String path) {
-    String updated = path;
-    for (Map.Entry<String, String> entry : pathLookups.entrySet()) {
-      updated = updated.replace("{{" + entry.getKey() + "}}", entry.getValue());
+    CompiledTemplate template = pathTemplates.get(path);
+    if (template == null) {
+      long compiledAt = generation.get();
+      template = CompiledTemplate.compilePath(path, pathLookups);
+      cacheTemplate(pathTemplates, path, template, compiledAt);
+    }
+    return template.render();
+  }
+
+  public String scanForNonStandardSub(String path) {
+    CompiledTemplate template = substitutionTemplates.get(path);
+    if (template == null) {
+      long compiledAt = generation.get();
+      template = CompiledTemplate.compileSubstitution(path);
+      cacheTemplate(substitutionTemplates, path, template, compiledAt);
+    }
+    return template.render();
+  }
+
+  private void cacheTemplate(Map<String, CompiledTemplate> templates, String key, CompiledTemplate template, long compiledAt) {
+    if (templates.size() >= MAX_CACHED_TEMPLATES) {
+      templates.clear();
+    }
+    templates.put(key, template);
+    // The paths changed while compiling and the flush may already have run, so this one is not kept
+    if (generation.get() != compiledAt) {
+      templates.remove(key, template);
+    }
+  }
+
+  private void pathsChanged() {
+    generation.incrementAndGet();
+    pathTemplates.clear();
+    substitutionTemplates.clear();
+  }
+
+  // Writes through to the registered paths, flushing the compiled templates on every change
+  private final class PathLookupView extends AbstractMap<String, String> {
+
+    @Override
+    public int size() {
+      return pathLookups.size();
     }
 
-    while (updated.contains("{{") && updated.contains("}}")) {
-      updated = scanForNonStandardSub(updated);
+    @Override
+    public boolean containsKey(Object key) {
+      return pathLookups.containsKey(key);
     }
-    while (updated.contains("//")) {
-      updated = updated.replace("//", File.separator);
+
+    @Override
+    public String get(Object key) {
+      return pathLookups.get(key);
     }
-    while (updated.contains("\\\\")) {
-      updated = updated.replace("\\\\", File.separator);
+
+    @Override
+    public String put(String key, String value) {
+      String previous = pathLookups.put(key, value);
+      pathsChanged();
+      return previous;
     }
-    while (updated.contains("/\\")) {
-      updated = updated.replace("/\\", File.separator);
+
+    @Override
+    public String remove(Object key) {
+      String previous = pathLookups.remove(key);
+      pathsChanged();
+      return previous;
     }
-    while (updated.contains("\\/")) {
-      updated = updated.replace("\\/", File.separator);
+
+    @Override
+    public void clear() {
+      pathLookups.clear();
+      pathsChanged();
     }
-    return updated;
-  }
 
-  public String scanForNonStandardSub(String path) {
-    if (path.contains("{{") && path.contains("}}")) {
-      int start = path.indexOf("{{");
-      int end = path.indexOf("}}");
-      String env = path.substring(start + 2, end);
-      String located = SystemProperties.getInstance().locateProperty(env, "");
-      path = path.replace("{{" + env + "}}", located);
-      while (path.contains("\"")) {
-        path = path.replace("\"", "");
-      }
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public int size() {
+          return pathLookups.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+          Iterator<Entry<String, String>> iterator = pathLookups.entrySet().iterator();
+          return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+              return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<String, String> next() {
+              Entry<String, String> entry = iterator.next();
+              return new SimpleEntry<>(entry) {
+                @Override
+                public String setValue(String value) {
+                  super.setValue(value);
+                  String previous = entry.setValue(value);
+                  pathsChanged();
+                  return previous;
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              iterator.remove();
+              pathsChanged();
+            }
+          };
+        }
+      };
     }
-    return path;
   }
 
   private static class Holder {
@@ -0,0 +1,174 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * An immutable, pre-resolved view of a {@link ConfigurationProperties} instance.
+ * <p>
+ * All the work that {@link ConfigurationProperties} performs on every lookup is done once. The
+ * global fallback, smart quote correction and path substitution are applied when the view is
+ * created, the unit suffixes and typed conversions the first time a value is read as a number or
+ * boolean. Lookups are then a single hash lookup with no allocation. Building the view is not
+ * counted in the {@link LookupStatistics}, and since the values are never changed after they are
+ * resolved the view can be shared between threads freely.
+ */
+@SuppressWarnings("java:S3740")
+public final class FrozenConfigurationProperties {
+
+  private final Map<String, Entry> entries;
+  @Getter
+  private final String source;
+
+  FrozenConfigurationProperties(ConfigurationProperties properties) {
+    Map<String, Entry> resolved = new LinkedHashMap<>();
+    for (String key : properties.resolvableKeys()) {
+      Object value = properties.get(key);
+      if (value != null) {
+        resolved.put(key, new Entry(properties, key, value));
+      }
+    }
+    entries = Collections.unmodifiableMap(resolved);
+    source = properties.getSource();
+  }
+
+  public Object get(String key) {
+    Entry entry = entries.get(key);
+    return entry != null ? entry.value : null;
+  }
+
+  public FrozenConfigurationProperties getConfiguration(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.value instanceof FrozenConfigurationProperties frozen) {
+      return frozen;
+    }
+    return null;
+  }
+
+  public String getProperty(String key) {
+    return getProperty(key, null);
+  }
+
+  public String getProperty(String key, String defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null ? entry.getStringValue() : defaultValue;
+  }
+
+  public boolean getBooleanProperty(String key, boolean defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null ? entry.getTyped().isBooleanValue() : defaultValue;
+  }
+
+  public long getLongProperty(String key, long defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.getTyped().isLongValid() ? entry.getTyped().getLongValue() : defaultValue;
+  }
+
+  public int getIntProperty(String key, int defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.getTyped().isLongValid() ? (int) entry.getTyped().getLongValue() : defaultValue;
+  }
+
+  public float getFloatProperty(String key, float defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.getTyped().isDoubleValid() ? (float) entry.getTyped().getDoubleValue() : defaultValue;
+  }
+
+  public double getDoubleProperty(String key, double defaultValue) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.getTyped().isDoubleValid() ? entry.getTyped().getDoubleValue() : defaultValue;
+  }
+
+  public boolean containsKey(String key) {
+    return entries.containsKey(key);
+  }
+
+  public Set<String> keySet() {
+    return entries.keySet();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(entry.getKey()).append('=').append(entry.getValue().value);
+    }
+    return sb.append('}').toString();
+  }
+
+  private static Object freezeValue(Object value) {
+    if (value instanceof ConfigurationProperties cfg) {
+      return cfg.freeze();
+    }
+    if (value instanceof List list) {
+      List<Object> frozen = new ArrayList<>(list.size());
+      for (Object item : list) {
+        frozen.add(freezeValue(item));
+      }
+      return Collections.unmodifiableList(frozen);
+    }
+    return value;
+  }
+
+  // The string form is resolved up front for scalars only, the typed form is parsed on first use
+  // since most entries are only ever read one way
+  private static final class Entry {
+    private final Object raw;
+    private final Object fixed;
+    private final Object value;
+    private final String stringValue;
+    private volatile TypedValue typed;
+
+    private Entry(ConfigurationProperties properties, String key, Object raw) {
+      this.raw = raw;
+      fixed = properties.fixSmartQuotes(key, raw);
+      value = freezeValue(fixed);
+      boolean scalar = !(fixed instanceof ConfigurationProperties) && !(fixed instanceof List);
+      stringValue = scalar ? ConfigurationProperties.resolveString(key, fixed) : null;
+    }
+
+    private String getStringValue() {
+      return stringValue != null ? stringValue : value.toString();
+    }
+
+    private TypedValue getTyped() {
+      TypedValue result = typed;
+      if (result == null) {
+        result = new TypedValue(raw, fixed); // immutable, so a racing duplicate is harmless
+        typed = result;
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A nested configuration, or list of configurations, held in its parsed form until it is first
+ * read. It is then built exactly once, even when first read by several threads at the same time,
+ * and the same instance is returned from then on.
+ * <p>
+ * {@link ConfigurationProperties} resolves these on every read path, so callers only ever see the
+ * built value.
+ * <p>
+ * When created with the parsed form it was built from, two sections that have not been built yet
+ * can be compared without building either of them, which lets a reload skip the sections that did
+ * not change.
+ */
+public final class LazySection {
+
+  private Function<ConfigurationProperties, ?> factory;
+  private Object source;
+  private ConfigurationProperties global;
+  private volatile Object value;
+
+  /**
+   * @param factory builds the {@link ConfigurationProperties}, or list of them, using the global
+   *                configuration it is passed, called at most once
+   */
+  public LazySection(Function<ConfigurationProperties, ?> factory) {
+    this(null, factory);
+  }
+
+  /**
+   * @param source  the parsed form the section is built from, it must not be changed afterwards
+   * @param factory builds the {@link ConfigurationProperties}, or list of them, using the global
+   *                configuration it is passed, called at most once
+   */
+  public LazySection(Object source, Function<ConfigurationProperties, ?> factory) {
+    this.source = source;
+    this.factory = factory;
+  }
+
+  /**
+   * Sets the global configuration passed to the factory, this has to be done before the section is
+   * first read.
+   *
+   * @param global the global configuration, may be null
+   */
+  public synchronized void setGlobal(ConfigurationProperties global) {
+    if (value != null) {
+      throw new IllegalStateException("Lazy section has already been built");
+    }
+    this.global = global;
+  }
+
+  /**
+   * Sets the global configuration, on the built configurations if the section has already been
+   * built, without building it otherwise.
+   *
+   * @param global the global configuration, may be null
+   */
+  public synchronized void updateGlobal(ConfigurationProperties global) {
+    if (value == null) {
+      this.global = global;
+    } else {
+      ConfigurationProperties.applyGlobal(value, global);
+    }
+  }
+
+  public boolean isMaterialised() {
+    return value != null;
+  }
+
+  /**
+   * @return true if neither section has been built and both were created from equal parsed forms
+   */
+  boolean hasSameSource(LazySection other) {
+    Object mine;
+    synchronized (this) {
+      mine = value == null ? source : null;
+    }
+    Object theirs;
+    synchronized (other) {
+      theirs = other.value == null ? other.source : null;
+    }
+    return mine != null && mine.equals(theirs);
+  }
+
+  Object get() {
+    Object result = value;
+    if (result == null) {
+      synchronized (this) {
+        result = value;
+        if (result == null) {
+          result = Objects.requireNonNull(factory.apply(global), "Lazy section built a null value");
+          factory = null; // release the parsed form
+          source = null;
+          value = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  static Object resolve(Object value) {
+    if (value instanceof LazySection section) {
+      return section.get();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated per key hit and miss counters for {@link ConfigurationProperties} lookups.
+ * <p>
+ * Collection is off by default and can be enabled either at runtime or by starting the JVM with
+ * <code>-DConfigLookupStatistics=true</code>. When disabled the lookup path only pays for a single
+ * volatile read.
+ */
+@SuppressWarnings("java:S6548") // yes it is a singleton
+public class LookupStatistics {
+
+  private final Map<String, Counter> counters;
+  private volatile boolean enabled;
+
+  private LookupStatistics() {
+    counters = new ConcurrentHashMap<>();
+    enabled = Boolean.getBoolean("ConfigLookupStatistics");
+  }
+
+  public static LookupStatistics getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getHits(String key) {
+    Counter counter = counters.get(key);
+    return counter != null ? counter.getHits() : 0;
+  }
+
+  public long getMisses(String key) {
+    Counter counter = counters.get(key);
+    return counter != null ? counter.getMisses() : 0;
+  }
+
+  public Map<String, Counter> getCounters() {
+    return Collections.unmodifiableMap(counters);
+  }
+
+  public void reset() {
+    counters.clear();
+  }
+
+  void record(String key, boolean hit) {
+    Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+    if (hit) {
+      counter.hits.increment();
+    } else {
+      counter.misses.increment();
+    }
+  }
+
+  public static final class Counter {
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    private Counter() {
+      hits = new LongAdder();
+      misses = new LongAdder();
+    }
+
+    public long getHits() {
+      return hits.sum();
+    }
+
+    public long getMisses() {
+      return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+      return "hits=" + getHits() + ", misses=" + getMisses();
+    }
+  }
+
+  private static class Holder {
+    static final LookupStatistics INSTANCE = new LookupStatistics();
+  }
+}
@@ -21,6 +21,7 @@ package io.mapsmessaging.configuration;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import org.jetbrains.annotations.NotNull;
@@ -31,6 +32,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @SuppressWarnings("java:S3740")
@@ -38,8 +40,12 @@ public abstract class PropertyManager {
 
   protected final ConfigurationProperties properties;
 
+  @Getter(AccessLevel.NONE)
+  private final Map<String, FrozenConfigurationProperties> snapshots;
+
   protected PropertyManager() {
     properties = new ConfigurationProperties();
+    snapshots = new ConcurrentHashMap<>();
   }
 
   public abstract void load();
@@ -52,9 +58,30 @@ public abstract class PropertyManager {
 
   public void update(String path, String name, ConfigurationProperties newProps) throws IOException{
     properties.replace(name, newProps);
+    publishSnapshot(name);
     store(path, name);
   }
 
+  /**
+   * Returns an immutable, pre-resolved view of the named configuration. The view is built on first
+   * request and replaced atomically whenever the configuration is reloaded, so readers never need to
+   * lock and always see either the previous or the new configuration in full.
+   *
+   * @param name the name of the configuration
+   * @return the current snapshot, empty if no such configuration exists
+   */
+  public @NonNull @NotNull FrozenConfigurationProperties getSnapshot(@NonNull @NotNull String name) {
+    return snapshots.computeIfAbsent(name, key -> getProperties(key).freeze());
+  }
+
+  protected void publishSnapshot(String name) {
+    snapshots.computeIfPresent(name, (key, previous) -> getProperties(key).freeze());
+  }
+
+  protected void clearSnapshots() {
+    snapshots.clear();
+  }
+
   protected abstract List<String> getKeys(String lookup);
 
   public String scanForDefaultConfig(String namespace) {
@@ -0,0 +1,318 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import io.mapsmessaging.logging.Logger;
+import io.mapsmessaging.logging.LoggerFactory;
+import io.mapsmessaging.persistance.PersistentObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static io.mapsmessaging.logging.ConfigLogMessages.*;
+
+/**
+ * Remembers the entry names of every jar scanned by {@link ResourceList}, keyed by the jar's path and
+ * checked against its last modified time and size, so a jar is only opened again when it changes.
+ * Jars that ship a {@value ResourceList#CONFIG_INDEX} also have that list recorded, and when only
+ * the configuration resources are wanted the rest of such a jar is never enumerated.
+ * <p>
+ * Directories are indexed in memory as well, the files found by walking one are reused for as long
+ * as none of the directories walked has had an entry added, removed or renamed, which is checked
+ * against their last modified times rather than by walking them again.
+ * <p>
+ * If a file is configured, via <code>-DConfigResourceIndexFile=&lt;path&gt;</code>, the index is
+ * read from it on first use and written back whenever a jar had to be rescanned, so the next start
+ * up does not need to open any unchanged jars at all. Jars that were not looked up since the index
+ * was loaded, no longer on the class path after an upgrade, are dropped before it is written.
+ */
+final class ResourceIndex extends PersistentObject {
+
+  private static final int LAYOUT_VERSION = 1;
+
+  private final Logger logger = LoggerFactory.getLogger(ResourceIndex.class);
+
+  private final Map<String, JarEntries> jars;
+  private final Map<String, DirectoryEntries> directories;
+  private final Set<String> used;
+  private final File indexFile;
+  private boolean loaded;
+  private volatile boolean changed;
+
+  ResourceIndex(File indexFile) {
+    this.indexFile = indexFile;
+    jars = new ConcurrentHashMap<>();
+    directories = new ConcurrentHashMap<>();
+    used = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Returns the names of all entries in the jar, from the index if the jar is unchanged.
+   */
+  List<String> getEntries(File jar) throws IOException {
+    JarEntries cached = lookup(jar);
+    if (cached != null && cached.entries != null) {
+      return cached.entries;
+    }
+    return scan(jar, true).entries;
+  }
+
+  /**
+   * Returns the resources listed in the jar's {@value ResourceList#CONFIG_INDEX} or, if it does not
+   * have one, the names of all its entries.
+   */
+  List<String> getConfigEntries(File jar) throws IOException {
+    JarEntries cached = lookup(jar);
+    if (cached == null) {
+      cached = scan(jar, false);
+    }
+    return cached.configIndex != null ? cached.configIndex : cached.entries;
+  }
+
+  /**
+   * Returns the canonical paths of every file below the directory, from the index if no directory
+   * below it has changed since it was last walked.
+   */
+  List<String> getDirectoryEntries(File directory) throws IOException {
+    String key = directory.getAbsolutePath();
+    DirectoryEntries cached = directories.get(key);
+    if (cached != null && cached.isUnchanged()) {
+      return cached.files;
+    }
+    Map<File, Long> walked = new HashMap<>();
+    List<String> files = new ArrayList<>();
+    walk(directory, walked, files);
+    DirectoryEntries scanned = new DirectoryEntries(walked, Collections.unmodifiableList(files));
+    directories.put(key, scanned);
+    return scanned.files;
+  }
+
+  void storeIfChanged() {
+    if (indexFile == null) {
+      return;
+    }
+    synchronized (this) {
+      if (jars.keySet().retainAll(used)) {
+        changed = true;
+      }
+      if (!changed) {
+        return;
+      }
+      changed = false;
+      File tmp = new File(indexFile.getAbsolutePath() + ".tmp");
+      try {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+          writeFormatHeader(out, FORMAT_COMPACT);
+          writeVarInt(out, LAYOUT_VERSION);
+          writeVarInt(out, jars.size());
+          for (Map.Entry<String, JarEntries> jar : jars.entrySet()) {
+            writeVarString(out, jar.getKey());
+            writeVarLong(out, jar.getValue().lastModified);
+            writeVarLong(out, jar.getValue().size);
+            writeList(out, jar.getValue().entries);
+            writeList(out, jar.getValue().configIndex);
+          }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        logger.log(RESOURCE_INDEX_STORE_FAILED, e, indexFile);
+      }
+    }
+  }
+
+  synchronized void clear() {
+    jars.clear();
+    used.clear();
+    directories.clear();
+    changed = false;
+  }
+
+  /**
+   * Parses a {@value ResourceList#CONFIG_INDEX} file, one resource per line, blank lines and lines
+   * starting with '#' are ignored.
+   */
+  static List<String> parseConfigIndex(InputStream inputStream) throws IOException {
+    List<String> resources = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        resources.add(line.startsWith("/") ? line.substring(1) : line);
+      }
+    }
+    return Collections.unmodifiableList(resources);
+  }
+
+  private JarEntries lookup(File jar) {
+    loadIfRequired();
+    String key = jar.getAbsolutePath();
+    used.add(key);
+    JarEntries cached = jars.get(key);
+    if (cached != null && cached.lastModified == jar.lastModified() && cached.size == jar.length()) {
+      return cached;
+    }
+    return null;
+  }
+
+  // We are parsing the classpath jar files, these should be safe, else we are in a world of pain
+  @java.lang.SuppressWarnings("squid:S5042")
+  private JarEntries scan(File jar, boolean listAll) throws IOException {
+    long lastModified = jar.lastModified();
+    long size = jar.length();
+    List<String> entries = null;
+    List<String> configIndex = null;
+    try (ZipFile zf = new ZipFile(jar)) {
+      ZipEntry indexEntry = zf.getEntry(ResourceList.CONFIG_INDEX);
+      if (indexEntry != null) {
+        try (InputStream in = zf.getInputStream(indexEntry)) {
+          configIndex = parseConfigIndex(in);
+        }
+      }
+      if (listAll || configIndex == null) {
+        entries = new ArrayList<>();
+        Enumeration<? extends ZipEntry> e = zf.entries();
+        while (e.hasMoreElements()) {
+          entries.add(e.nextElement().getName());
+        }
+        entries = Collections.unmodifiableList(entries);
+      }
+    }
+    JarEntries scanned = new JarEntries(lastModified, size, entries, configIndex);
+    jars.put(jar.getAbsolutePath(), scanned);
+    changed = true;
+    return scanned;
+  }
+
+  private static void walk(File directory, Map<File, Long> walked, List<String> files) throws IOException {
+    walked.put(directory, lastModified(directory));
+    File[] fileList = directory.listFiles();
+    if (fileList != null) {
+      for (File file : fileList) {
+        if (file.isDirectory()) {
+          walk(file, walked, files);
+        } else {
+          files.add(file.getCanonicalPath());
+        }
+      }
+    }
+  }
+
+  // Finer than File.lastModified(), which is only to the millisecond, where the file system allows
+  private static long lastModified(File directory) {
+    try {
+      return Files.getLastModifiedTime(directory.toPath()).to(TimeUnit.NANOSECONDS);
+    } catch (IOException e) {
+      return -1; // gone, or unreadable, so never matches a recorded time
+    }
+  }
+
+  private synchronized void loadIfRequired() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (indexFile == null || !indexFile.isFile()) {
+      return;
+    }
+    try (InputStream in = new BufferedInputStream(new FileInputStream(indexFile))) {
+      if (readFormatHeader(in) != FORMAT_COMPACT || readVarInt(in) != LAYOUT_VERSION) {
+        throw new IOException("Unknown index format");
+      }
+      int count = readVarInt(in);
+      for (int x = 0; x < count; x++) {
+        String key = readVarString(in);
+        long lastModified = readVarLong(in);
+        long size = readVarLong(in);
+        List<String> entries = readList(in);
+        List<String> configIndex = readList(in);
+        jars.put(key, new JarEntries(lastModified, size, entries, configIndex));
+      }
+      logger.log(RESOURCE_INDEX_LOADED, indexFile, count);
+    } catch (IOException | RuntimeException e) {
+      jars.clear();
+      logger.log(RESOURCE_INDEX_LOAD_FAILED, e, indexFile);
+    }
+  }
+
+  private void writeList(OutputStream out, List<String> list) throws IOException {
+    if (list == null) {
+      writeVarInt(out, -1);
+      return;
+    }
+    writeVarInt(out, list.size());
+    for (String entry : list) {
+      writeVarString(out, entry);
+    }
+  }
+
+  private List<String> readList(InputStream in) throws IOException {
+    int count = readVarInt(in);
+    if (count < 0) {
+      return null;
+    }
+    List<String> list = new ArrayList<>(count);
+    for (int x = 0; x < count; x++) {
+      list.add(readVarString(in));
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  private static final class DirectoryEntries {
+    private final Map<File, Long> directories; // every directory walked and its last modified time
+    private final List<String> files;
+
+    private DirectoryEntries(Map<File, Long> directories, List<String> files) {
+      this.directories = directories;
+      this.files = files;
+    }
+
+    private boolean isUnchanged() {
+      for (Map.Entry<File, Long> directory : directories.entrySet()) {
+        long lastModified = lastModified(directory.getKey());
+        if (lastModified < 0 || lastModified != directory.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class JarEntries {
+    private final long lastModified;
+    private final long size;
+    private final List<String> entries; // null if the jar has a config index and was never fully listed
+    private final List<String> configIndex; // null if the jar has no config index
+
+    private JarEntries(long lastModified, long size, List<String> entries, List<String> configIndex) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.entries = entries;
+      this.configIndex = configIndex;
+    }
+  }
+}
@@ -23,13 +23,12 @@ import lombok.NonNull;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Enumeration;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
  * This is a helper class to load resources from the classpath
@@ -38,6 +37,14 @@ import java.util.zip.ZipFile;
  */
 public class ResourceList {
 
+  /**
+   * Optional file, in a jar or classpath directory, listing the configuration resources it contains,
+   * one per line relative to its root. See {@link ConfigIndexGenerator}.
+   */
+  public static final String CONFIG_INDEX = "META-INF/maps-config.index";
+
+  private static final ResourceIndex INDEX = new ResourceIndex(indexFile());
+
   private ResourceList() {
   }
 
@@ -52,12 +59,58 @@ public class ResourceList {
     final ArrayList<String> returnValue = new ArrayList<>();
     final String classPath = System.getProperty("java.class.path", ".");
     final String[] classPathElements = classPath.split(System.getProperty("path.separator"));
-    for (final String element : classPathElements) {
-      returnValue.addAll(getResources(element, pattern));
+    try {
+      for (final String element : classPathElements) {
+        returnValue.addAll(getResources(element, pattern));
+      }
+    } finally {
+      INDEX.storeIfChanged();
     }
     return returnValue;
   }
 
+  /**
+   * Same as {@link #getResources(Pattern)} except that jars and directories that provide a
+   * {@value #CONFIG_INDEX} only have the resources listed in it considered, only those without an
+   * index are scanned.
+   *
+   * @param pattern the pattern to match
+   * @return the resources in the order they are found
+   * @throws IOException if there was an issue loading values from the resource bundle
+   */
+  public static Collection<String> getConfigResources(@NonNull @NotNull final Pattern pattern) throws IOException {
+    final ArrayList<String> returnValue = new ArrayList<>();
+    final String classPath = System.getProperty("java.class.path", ".");
+    final String[] classPathElements = classPath.split(System.getProperty("path.separator"));
+    try {
+      for (final String element : classPathElements) {
+        final File file = new File(element);
+        if (file.isDirectory()) {
+          returnValue.addAll(getConfigResourcesFromDirectory(file, pattern));
+        } else {
+          returnValue.addAll(filter(INDEX.getConfigEntries(file), pattern));
+        }
+      }
+    } finally {
+      INDEX.storeIfChanged();
+    }
+    return returnValue;
+  }
+
+  /**
+   * Discards the cached index, the next call to {@link #getResources(Pattern)} rescans every jar and
+   * walks every directory. Files added, removed or renamed in a directory are picked up regardless,
+   * since every directory that was walked is checked for changes first.
+   */
+  public static void clearCache() {
+    INDEX.clear();
+  }
+
+  private static File indexFile() {
+    String path = System.getProperty("ConfigResourceIndexFile");
+    return path != null && !path.isEmpty() ? new File(path) : null;
+  }
+
   private static Collection<String> getResources(final String element, final Pattern pattern)
       throws IOException {
     final ArrayList<String> returnValue = new ArrayList<>();
@@ -70,38 +123,35 @@ public class ResourceList {
     return returnValue;
   }
 
-  // We are parsing the classpath jar files, these should be safe, else we are in a world of pain
-  @java.lang.SuppressWarnings("squid:S5042")
   private static Collection<String> getResourcesFromJarFile(final File file, final Pattern pattern)
       throws IOException {
-    final ArrayList<String> returnValue = new ArrayList<>();
-    ZipFile zf = new ZipFile(file);
+    return filter(INDEX.getEntries(file), pattern);
+  }
 
-    final Enumeration<? extends ZipEntry> e = zf.entries();
-    while (e.hasMoreElements()) {
-      final ZipEntry ze = e.nextElement();
-      final String fileName = ze.getName();
+  private static Collection<String> filter(final Collection<String> names, final Pattern pattern) {
+    final ArrayList<String> returnValue = new ArrayList<>();
+    for (final String fileName : names) {
       final boolean accept = pattern.matcher(fileName).matches();
       if (accept) {
         returnValue.add(fileName);
       }
     }
-    zf.close();
     return returnValue;
   }
 
-  private static Collection<String> getResourcesFromDirectory(
-      final File directory, final Pattern pattern) throws IOException {
+  private static Collection<String> getConfigResourcesFromDirectory(final File directory, final Pattern pattern)
+      throws IOException {
+    final File index = new File(directory, CONFIG_INDEX);
+    if (!index.isFile()) {
+      return getResourcesFromDirectory(directory, pattern);
+    }
     final ArrayList<String> returnValue = new ArrayList<>();
-    final File[] fileList = directory.listFiles();
-    if (fileList != null && fileList.length > 0) {
-      for (final File file : fileList) {
-        if (file.isDirectory()) {
-          returnValue.addAll(getResourcesFromDirectory(file, pattern));
-        } else {
+    try (InputStream inputStream = new FileInputStream(index)) {
+      for (final String resource : ResourceIndex.parseConfigIndex(inputStream)) {
+        final File file = new File(directory, resource);
+        if (file.isFile()) {
           final String fileName = file.getCanonicalPath();
-          final boolean accept = pattern.matcher(fileName).matches();
-          if (accept) {
+          if (pattern.matcher(fileName).matches()) {
             returnValue.add(fileName);
           }
         }
@@ -109,4 +159,9 @@ public class ResourceList {
     }
     return returnValue;
   }
+
+  private static Collection<String> getResourcesFromDirectory(
+      final File directory, final Pattern pattern) throws IOException {
+    return filter(INDEX.getDirectoryEntries(directory), pattern);
+  }
 }
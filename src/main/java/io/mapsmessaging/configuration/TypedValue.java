@@ -0,0 +1,62 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import lombok.Getter;
+
+/**
+ * Holds the typed interpretations of a single configuration value so that the string parsing,
+ * unit suffix and time keyword handling is only ever done once per value.
+ */
+@Getter
+final class TypedValue {
+
+  private final Object source;
+  private final boolean booleanValue;
+  private final boolean longValid;
+  private final long longValue;
+  private final boolean doubleValid;
+  private final double doubleValue;
+
+  TypedValue(Object source, Object value) {
+    this.source = source;
+    booleanValue = ConfigurationProperties.asBoolean(value);
+
+    long tmpLong = 0;
+    boolean tmpLongValid = true;
+    try {
+      tmpLong = ConfigurationProperties.asLong(value);
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      tmpLongValid = false;
+    }
+    longValue = tmpLong;
+    longValid = tmpLongValid;
+
+    double tmpDouble = 0;
+    boolean tmpDoubleValid = true;
+    try {
+      tmpDouble = ConfigurationProperties.asDouble(value);
+    } catch (NumberFormatException e) {
+      tmpDoubleValid = false;
+    }
+    doubleValue = tmpDouble;
+    doubleValid = tmpDoubleValid;
+  }
+}
@@ -24,6 +24,7 @@ import io.mapsmessaging.logging.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class AwsPropertyManager extends RemotePropertyManager {
 
@@ -39,6 +40,11 @@ public class AwsPropertyManager extends RemotePropertyManager {
     return awsSsmApi.getValue(key);
   }
 
+  @Override
+  protected Map<String, String> getAllValues(String prefix) throws IOException {
+    return awsSsmApi.getValues(prefix);
+  }
+
   @Override
   protected void putValue(String name, String value) throws IOException {
     awsSsmApi.putValue(name, toYaml());
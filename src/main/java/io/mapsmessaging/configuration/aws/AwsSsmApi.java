@@ -23,10 +23,15 @@ import software.amazon.awssdk.services.ssm.SsmClient;
 import software.amazon.awssdk.services.ssm.model.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AwsSsmApi {
 
+  private static final int MAX_RESULTS = 10; // the largest page GetParametersByPath returns
+
   private final SsmClient ssmClient;
   private final String prefix;
 
@@ -41,15 +46,36 @@ public class AwsSsmApi {
 
   // Retrieve a list of parameter names based on a path
   public List<String> getKeys(String path) throws IOException {
+    return getParametersByPath(path, false).stream()
+        .map(parameter -> processKey(parameter.name()))
+        .toList();
+  }
+
+  // Retrieve every parameter name and value under a path, a page of up to 10 per request
+  public Map<String, String> getValues(String path) throws IOException {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (Parameter parameter : getParametersByPath(path, true)) {
+      values.put(processKey(parameter.name()), parameter.value());
+    }
+    return values;
+  }
+
+  private List<Parameter> getParametersByPath(String path, boolean withDecryption) throws IOException {
     try {
-      GetParametersByPathResponse response = ssmClient.getParametersByPath(GetParametersByPathRequest.builder()
-          .path(buildKey(path))
-          .recursive(true)
-          .build());
-      List<String> keys = response.parameters().stream().map(Parameter::name).toList();
-      return keys.stream()
-          .map(this::processKey)
-          .toList();
+      List<Parameter> parameters = new ArrayList<>();
+      String nextToken = null;
+      do {
+        GetParametersByPathResponse response = ssmClient.getParametersByPath(GetParametersByPathRequest.builder()
+            .path(buildKey(path))
+            .recursive(true)
+            .withDecryption(withDecryption)
+            .maxResults(MAX_RESULTS)
+            .nextToken(nextToken)
+            .build());
+        parameters.addAll(response.parameters());
+        nextToken = response.nextToken();
+      } while (nextToken != null && !nextToken.isEmpty());
+      return parameters;
     } catch (SsmException e) {
       throw new IOException("Error retrieving keys from Parameter Store", e);
     }
@@ -26,6 +26,12 @@ public class Constants {
   public static final int CONSUL_PORT = 8080;
   public static final String NAME = "mapsMessaging";
   public static final int RETRY_COUNT = 20;
+  public static final long WATCH_WAIT_TIME = 300;
+  public static final long WATCH_MAX_BACKOFF = 60;
+  public static final int MAX_CONNECTIONS = 20;
+  public static final long CACHE_SIZE = 1000;
+  public static final long CACHE_TTL = 30;
+  public static final long CACHE_NEGATIVE_TTL = 5;
 
   private Constants() {
     // hide the constructor
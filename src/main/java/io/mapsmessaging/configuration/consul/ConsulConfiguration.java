@@ -68,6 +68,18 @@ public class ConsulConfiguration {
     return SystemProperties.getInstance().getBooleanProperty("ConsulAgentRegister", false);
   }
 
+  public int getCacheSize() {
+    return (int) SystemProperties.getInstance().getLongProperty("ConsulCacheSize", Constants.CACHE_SIZE);
+  }
+
+  public long getCacheTtl() {
+    return SystemProperties.getInstance().getLongProperty("ConsulCacheTtl", Constants.CACHE_TTL);
+  }
+
+  public long getCacheNegativeTtl() {
+    return SystemProperties.getInstance().getLongProperty("ConsulCacheNegativeTtl", Constants.CACHE_NEGATIVE_TTL);
+  }
+
   private String parseToken(String tokencfg) {
     String tokenProp = SystemProperties.getInstance().getProperty("ConsulToken", tokencfg);
     if (tokenProp != null && !tokenProp.isEmpty()) {
@@ -0,0 +1,31 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package io.mapsmessaging.configuration.consul;
+
+import java.util.List;
+
+/**
+ * The keys found under a prefix and the Consul index they were read at, the index is passed back
+ * on the next blocking query to wait for a change.
+ *
+ * @param index  the <code>X-Consul-Index</code> returned with the values
+ * @param values every key under the prefix, empty if there are none
+ */
+public record ConsulKeyValues(long index, List<ConsulKeyValue> values) {
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul;
+
+import io.mapsmessaging.logging.Logger;
+import io.mapsmessaging.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.mapsmessaging.logging.ConfigLogMessages.*;
+
+/**
+ * Watches a Consul key prefix using blocking queries. A single request is kept outstanding against
+ * the prefix and only returns once something under it has been written, or the wait time has
+ * passed, at which point the <code>ModifyIndex</code> of each key is compared with the one last seen
+ * so that only the keys that were actually written, or removed, are passed to the listener.
+ * <p>
+ * The first response reports every key, so that anything written between a load and the start of
+ * the watch is not missed. Failed requests are retried with an increasing delay.
+ */
+public class ConsulKeyWatcher implements Runnable {
+
+  private final Logger logger = LoggerFactory.getLogger(ConsulKeyWatcher.class);
+  private final String prefix;
+  private final long waitSeconds;
+  private final Supplier<ConsulServerApi> serverApi;
+  private final Listener listener;
+  private final Map<String, Long> modifyIndexes;
+
+  private volatile boolean running;
+  private Thread thread;
+  private long index;
+
+  public ConsulKeyWatcher(String prefix, long waitSeconds, Supplier<ConsulServerApi> serverApi, Listener listener) {
+    this.prefix = prefix;
+    this.waitSeconds = waitSeconds;
+    this.serverApi = serverApi;
+    this.listener = listener;
+    modifyIndexes = new HashMap<>();
+  }
+
+  public synchronized void start() {
+    if (thread == null) {
+      running = true;
+      thread = new Thread(this, "ConsulKeyWatcher-" + prefix);
+      thread.setDaemon(true);
+      thread.start();
+      logger.log(CONSUL_WATCH_STARTED, prefix);
+    }
+  }
+
+  /**
+   * Stops the watch, an outstanding blocking query is not aborted so the thread only exits, and
+   * stops reporting changes, once that query returns.
+   */
+  public synchronized void stop() {
+    if (thread != null) {
+      running = false;
+      thread.interrupt();
+      thread = null;
+      logger.log(CONSUL_WATCH_STOPPED, prefix);
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public void run() {
+    long backoff = 1;
+    while (running) {
+      try {
+        poll();
+        backoff = 1;
+      } catch (IOException | RuntimeException e) {
+        if (!running) {
+          break;
+        }
+        logger.log(CONSUL_WATCH_FAILED, e, prefix, backoff);
+        try {
+          TimeUnit.SECONDS.sleep(backoff);
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        backoff = Math.min(backoff * 2, Constants.WATCH_MAX_BACKOFF);
+      }
+    }
+  }
+
+  void poll() throws IOException {
+    ConsulServerApi api = serverApi.get();
+    if (api == null) {
+      throw new IOException("Consul manager is not started");
+    }
+    ConsulKeyValues response = api.getValues(prefix, index, waitSeconds);
+    long previous = index;
+    if (response.index() < previous) {
+      // The index went backwards, the Consul state was reset, so start again without blocking
+      index = 0;
+      logger.log(CONSUL_WATCH_INDEX_RESET, prefix);
+      return;
+    }
+    index = response.index();
+    if (previous != 0 && index == previous) {
+      return; // timed out with no change
+    }
+
+    List<ConsulKeyValue> updated = new ArrayList<>();
+    Set<String> removed = new LinkedHashSet<>(modifyIndexes.keySet());
+    for (ConsulKeyValue keyValue : response.values()) {
+      removed.remove(keyValue.key());
+      Long last = modifyIndexes.put(keyValue.key(), keyValue.modifyIndex());
+      if (last == null || last != keyValue.modifyIndex()) {
+        updated.add(keyValue);
+      }
+    }
+    modifyIndexes.keySet().removeAll(removed);
+    if (!updated.isEmpty() || !removed.isEmpty()) {
+      logger.log(CONSUL_WATCH_CHANGES, prefix, updated.size(), removed.size());
+      listener.keysChanged(updated, new ArrayList<>(removed));
+    }
+  }
+
+  /**
+   * Called from the watch thread with the keys under the prefix that were written or removed.
+   */
+  @FunctionalInterface
+  public interface Listener {
+    void keysChanged(List<ConsulKeyValue> updated, List<String> removed);
+  }
+}
@@ -21,21 +21,88 @@ package io.mapsmessaging.configuration.consul;
 
 
 import io.mapsmessaging.configuration.yaml.RemotePropertyManager;
+import io.mapsmessaging.logging.Logger;
 import io.mapsmessaging.logging.LoggerFactory;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import static io.mapsmessaging.logging.ConfigLogMessages.CONSUL_WATCH_UPDATE_FAILED;
 
 public class ConsulPropertyManager extends RemotePropertyManager {
+
+  private final Logger logger = LoggerFactory.getLogger(ConsulPropertyManager.class);
+  private ConsulKeyWatcher watcher;
+
   public ConsulPropertyManager(String prefix) {
     super(fixPrefix(prefix), LoggerFactory.getLogger(ConsulPropertyManager.class));
   }
 
+  public void startWatch() {
+    startWatch(Constants.WATCH_WAIT_TIME);
+  }
+
+  /**
+   * Starts watching the prefix for changes with a Consul blocking query, only the keys that have
+   * been written since they were last seen are fetched and applied with {@link #reload(String, String)},
+   * so the change listeners are called with what changed, and deleted keys are unloaded.
+   *
+   * @param waitSeconds how long each blocking query waits for a change before it is reissued
+   */
+  public synchronized void startWatch(long waitSeconds) {
+    if (watcher == null) {
+      watcher = new ConsulKeyWatcher(serverPrefix, waitSeconds, () -> ConsulManagerFactory.getInstance().getManager(), this::applyChanges);
+      watcher.start();
+    }
+  }
+
+  public synchronized void stopWatch() {
+    if (watcher != null) {
+      watcher.stop();
+      watcher = null;
+    }
+  }
+
+  public synchronized boolean isWatching() {
+    return watcher != null;
+  }
+
+  private void applyChanges(List<ConsulKeyValue> updated, List<String> removed) {
+    for (ConsulKeyValue keyValue : updated) {
+      String name = toPropertyName(keyValue.key());
+      if (!name.isEmpty() && keyValue.value() != null) { // skip the folder keys
+        try {
+          reload(name, keyValue.value());
+        } catch (RuntimeException e) {
+          logger.log(CONSUL_WATCH_UPDATE_FAILED, e, keyValue.key());
+        }
+      }
+    }
+    for (String key : removed) {
+      String name = toPropertyName(key);
+      if (!name.isEmpty()) {
+        unload(name);
+      }
+    }
+  }
+
   @Override
   protected String getValue(String key) throws IOException {
     return ConsulManagerFactory.getInstance().getManager().getValue(key);
   }
 
+  @Override
+  protected Map<String, String> getAllValues(String prefix) throws IOException {
+    ConsulServerApi manager = ConsulManagerFactory.getInstance().getManager();
+    Map<String, String> values = new LinkedHashMap<>();
+    for (ConsulKeyValue keyValue : manager.getValues(prefix, 0, 0).values()) {
+      values.put(keyValue.key(), keyValue.value());
+    }
+    return values;
+  }
+
   @Override
   protected void putValue(String name, String value) throws IOException {
     ConsulManagerFactory.getInstance()
@@ -101,6 +101,19 @@ public abstract class ConsulServerApi implements Runnable {
 
   public abstract String getValue(String key) throws IOException;
 
+  /**
+   * Reads every key and value under the prefix in a single request. When an index is supplied this
+   * is a Consul blocking query, the call does not return until something under the prefix changes
+   * or the wait time passes.
+   *
+   * @param prefix      the key prefix to read
+   * @param index       the index returned by the previous call, 0 to return immediately
+   * @param waitSeconds the longest time to block for, ignored when the index is 0
+   * @return the values and the index they were read at
+   * @throws IOException if the values could not be read
+   */
+  public abstract ConsulKeyValues getValues(String prefix, long index, long waitSeconds) throws IOException;
+
   public abstract void putValue(String key, String value) throws IOException;
 
   public abstract void deleteKey(String key) throws IOException;
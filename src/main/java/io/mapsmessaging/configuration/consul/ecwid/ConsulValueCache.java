@@ -0,0 +1,211 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul.ecwid;
+
+import io.mapsmessaging.configuration.consul.ConsulKeyValue;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, least recently used cache of Consul values.
+ * <p>
+ * Each value expires a fixed time after it was read, so a value written by another node is seen
+ * again within that time. Keys that do not exist are cached as well, with their own, normally
+ * shorter, expiry. Values read in bulk, including those returned to a watch, replace the cached
+ * ones only when their <code>ModifyIndex</code> is not older, so a slow read cannot overwrite a newer
+ * value, and cached keys under the prefix that were not returned are dropped.
+ * <p>
+ * A key written or deleted through this node is invalidated and leaves a tombstone for the expiry
+ * time. Each read takes a {@link #readStamp()} before it goes to Consul, and a read that started
+ * before the invalidation can only cache a value newer than the one that was invalidated. A slow
+ * read that raced the write therefore cannot bring the value from before the write back.
+ * <p>
+ * A size or expiry of 0 disables the cache.
+ */
+public final class ConsulValueCache {
+
+  private final int maxSize;
+  private final long ttl;
+  private final long negativeTtl;
+  private final LongSupplier clock;
+  private final Map<String, Cached> entries;
+  private final Map<String, Tombstone> tombstones;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+  private final LongAdder expirations;
+  private long generation;
+
+  public ConsulValueCache(int maxSize, long ttl, long negativeTtl, TimeUnit unit) {
+    this(maxSize, ttl, negativeTtl, unit, System::nanoTime);
+  }
+
+  ConsulValueCache(int maxSize, long ttl, long negativeTtl, TimeUnit unit, LongSupplier clock) {
+    this.maxSize = Math.max(0, maxSize);
+    this.ttl = unit.toNanos(ttl);
+    this.negativeTtl = unit.toNanos(negativeTtl);
+    this.clock = clock;
+    hits = new LongAdder();
+    misses = new LongAdder();
+    evictions = new LongAdder();
+    expirations = new LongAdder();
+    tombstones = new HashMap<>();
+    entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+        if (size() > ConsulValueCache.this.maxSize) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0 && ttl > 0;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getExpirations() {
+    return expirations.sum();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    tombstones.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ", expirations=" + getExpirations();
+  }
+
+  /**
+   * @return the cached entry, its value is null if the key is known not to exist, or null if the key
+   * is not cached or has expired
+   */
+  synchronized Cached get(String key) {
+    Cached cached = entries.get(key);
+    if (cached != null && cached.expires - clock.getAsLong() <= 0) {
+      entries.remove(key);
+      expirations.increment();
+      cached = null;
+    }
+    if (cached == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return cached;
+  }
+
+  /**
+   * @return the stamp to pass with the result of a read that is about to be made
+   */
+  synchronized long readStamp() {
+    return generation;
+  }
+
+  synchronized void put(String key, String value, long modifyIndex, long readStamp) {
+    if (!isEnabled()) {
+      return;
+    }
+    long now = clock.getAsLong();
+    if (isStale(key, modifyIndex, readStamp, now)) {
+      return; // read before this node changed the key, and not newer than the change
+    }
+    Cached existing = entries.get(key);
+    if (existing != null && existing.expires - now > 0 && existing.modifyIndex > modifyIndex) {
+      return; // a newer value is already cached
+    }
+    entries.put(key, new Cached(value, modifyIndex, now + (value != null ? ttl : negativeTtl)));
+  }
+
+  synchronized void putMissing(String key, long readStamp) {
+    if (!isEnabled() || negativeTtl <= 0) {
+      return;
+    }
+    long now = clock.getAsLong();
+    if (!isStale(key, 0, readStamp, now)) {
+      entries.put(key, new Cached(null, 0, now + negativeTtl));
+    }
+  }
+
+  synchronized void invalidate(String key) {
+    Cached existing = entries.remove(key);
+    if (!isEnabled()) {
+      return;
+    }
+    long now = clock.getAsLong();
+    tombstones.values().removeIf(tombstone -> tombstone.expires - now <= 0);
+    // Without the invalidated index, nothing read before the change can be trusted
+    long minIndex = existing != null ? existing.modifyIndex + 1 : Long.MAX_VALUE;
+    tombstones.put(key, new Tombstone(++generation, minIndex, now + ttl));
+  }
+
+  synchronized void refresh(String prefix, List<ConsulKeyValue> values, long readStamp) {
+    if (!isEnabled()) {
+      return;
+    }
+    Set<String> returned = new HashSet<>();
+    for (ConsulKeyValue keyValue : values) {
+      returned.add(keyValue.key());
+      put(keyValue.key(), keyValue.value(), keyValue.modifyIndex(), readStamp);
+    }
+    entries.keySet().removeIf(key -> key.startsWith(prefix) && !returned.contains(key));
+  }
+
+  private boolean isStale(String key, long modifyIndex, long readStamp, long now) {
+    Tombstone tombstone = tombstones.get(key);
+    if (tombstone == null) {
+      return false;
+    }
+    if (tombstone.expires - now <= 0) {
+      tombstones.remove(key);
+      return false;
+    }
+    return readStamp < tombstone.generation && modifyIndex < tombstone.minIndex;
+  }
+
+  record Cached(String value, long modifyIndex, long expires) {
+  }
+
+  private record Tombstone(long generation, long minIndex, long expires) {
+  }
+}
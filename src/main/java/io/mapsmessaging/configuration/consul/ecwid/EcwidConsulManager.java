@@ -22,10 +22,13 @@ package io.mapsmessaging.configuration.consul.ecwid;
 import com.ecwid.consul.transport.TransportException;
 import com.ecwid.consul.v1.ConsulClient;
 import com.ecwid.consul.v1.ConsulRawClient;
+import com.ecwid.consul.v1.QueryParams;
 import com.ecwid.consul.v1.Response;
 import com.ecwid.consul.v1.agent.model.NewService;
 import com.ecwid.consul.v1.kv.model.GetValue;
 import io.mapsmessaging.configuration.consul.Constants;
+import io.mapsmessaging.configuration.consul.ConsulKeyValue;
+import io.mapsmessaging.configuration.consul.ConsulKeyValues;
 import io.mapsmessaging.configuration.consul.ConsulServerApi;
 import io.mapsmessaging.logging.Logger;
 import io.mapsmessaging.logging.LoggerFactory;
@@ -40,7 +43,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -51,12 +54,13 @@ public class EcwidConsulManager extends ConsulServerApi {
 
   private final Logger logger = LoggerFactory.getLogger(EcwidConsulManager.class);
 
-  private final Map<String, String> cache;
+  private final ConsulValueCache cache;
   private ConsulClient client;
 
   public EcwidConsulManager(String name) throws IOException {
     super(name);
-    cache = new WeakHashMap<>();
+    cache = new ConsulValueCache(consulConfiguration.getCacheSize(), consulConfiguration.getCacheTtl(),
+        consulConfiguration.getCacheNegativeTtl(), TimeUnit.SECONDS);
     try {
       if (Boolean.getBoolean("ConsulDebug")) {
         java.util.logging.Logger apacheLogger = java.util.logging.Logger.getLogger("org.apache.http");
@@ -95,8 +99,12 @@ public class EcwidConsulManager extends ConsulServerApi {
       defaultHeaders.add(new BasicHeader("X-Consul-Token", consulConfiguration.getConsulToken()));
     }
 
+    // Watches hold a connection open for the length of their blocking query, and loads may read
+    // keys concurrently, so allow more than the default 2 connections to the agent
     HttpClient httpClient = HttpClients.custom()
         .setDefaultHeaders(defaultHeaders)
+        .setMaxConnPerRoute(Constants.MAX_CONNECTIONS)
+        .setMaxConnTotal(Constants.MAX_CONNECTIONS)
         .build();
 
     String host = url.getProtocol() + "://" + url.getHost();
@@ -107,6 +115,10 @@ public class EcwidConsulManager extends ConsulServerApi {
   }
 
 
+  public ConsulValueCache getCache() {
+    return cache;
+  }
+
   @Override
   protected void pingService() {
     // To Do
@@ -174,6 +186,23 @@ public class EcwidConsulManager extends ConsulServerApi {
     return "";
   }
 
+  @Override
+  public ConsulKeyValues getValues(String prefix, long index, long waitSeconds) throws IOException {
+    int retry = 0;
+    while (retry < 3) {
+      try {
+        return getValuesInternal(prefix, index, waitSeconds);
+      } catch (TransportException exception) {
+        retry++;
+        recreateClient();
+        if (retry == 3) {
+          throw exception;
+        }
+      }
+    }
+    return new ConsulKeyValues(0, new ArrayList<>());
+  }
+
   @Override
   public void putValue(String key, String value) throws IOException {
     int retry = 0;
@@ -222,29 +251,52 @@ public class EcwidConsulManager extends ConsulServerApi {
   private String getValueInternal(String key) {
     String keyName = validateKey(key);
     logger.log(CONSUL_KEY_VALUE_MANAGER, "GetValues", keyName);
-    if (cache.containsKey(key)) {
-      return cache.get(key);
+    ConsulValueCache.Cached cached = cache.get(keyName);
+    if (cached != null) {
+      return cached.value();
     }
+    long readStamp = cache.readStamp();
     Response<GetValue> response = client.getKVValue(keyName);
     GetValue getValue = response.getValue();
+    if (getValue == null) { // no such key
+      cache.putMissing(keyName, readStamp);
+      return null;
+    }
     String value = getValue.getDecodedValue();
-    cache.put(key, value);
+    cache.put(keyName, value, getValue.getModifyIndex(), readStamp);
     return value;
   }
 
+  private ConsulKeyValues getValuesInternal(String prefix, long index, long waitSeconds) {
+    String keyName = validateKey(prefix);
+    logger.log(CONSUL_KEY_VALUE_MANAGER, "getValues", keyName);
+    QueryParams queryParams = index > 0 ? new QueryParams(waitSeconds, index) : QueryParams.DEFAULT;
+    long readStamp = cache.readStamp();
+    Response<List<GetValue>> response = client.getKVValues(keyName, queryParams);
+    List<ConsulKeyValue> values = new ArrayList<>();
+    if (response.getValue() != null) { // Consul returns a 404, and so no list, when nothing is under the prefix
+      for (GetValue getValue : response.getValue()) {
+        values.add(new ConsulKeyValue(getValue.getKey(), getValue.getDecodedValue(), getValue.getModifyIndex()));
+      }
+    }
+    cache.refresh(keyName, values, readStamp);
+    Long consulIndex = response.getConsulIndex();
+    return new ConsulKeyValues(consulIndex != null ? consulIndex : 0, values);
+  }
+
   private void putValueInternal(String key, String value) {
     String keyName = validateKey(key);
-    cache.remove(key);
     value = value.replace("\n", "\r\n");
     value = value.replace("\r\r", "\r");
     logger.log(CONSUL_KEY_VALUE_MANAGER, "putValue", keyName);
     client.setKVValue(keyName, value);
+    cache.invalidate(keyName);
   }
 
   private void deleteKeyInternal(String key) {
     String keyName = validateKey(key);
-    cache.remove(key);
     logger.log(CONSUL_KEY_VALUE_MANAGER, "deleteKey", keyName);
     client.deleteKVValue(keyName);
+    cache.invalidate(keyName);
   }
 }
@@ -19,6 +19,7 @@
 
 package io.mapsmessaging.configuration.file;
 
+import io.mapsmessaging.configuration.ConfigurationProperties;
 import io.mapsmessaging.configuration.ResourceList;
 import io.mapsmessaging.configuration.yaml.YamlPropertyManager;
 import io.mapsmessaging.logging.Logger;
@@ -28,6 +29,9 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
 import static io.mapsmessaging.logging.ConfigLogMessages.*;
@@ -35,16 +39,81 @@ import static io.mapsmessaging.logging.ConfigLogMessages.*;
 public class FileYamlPropertyManager extends YamlPropertyManager {
 
   private final Logger logger = LoggerFactory.getLogger(FileYamlPropertyManager.class);
+  private final boolean parallelLoad;
+  private final boolean streamingLoad;
+
+  public FileYamlPropertyManager() {
+    this(Boolean.getBoolean("ConfigParallelLoad"));
+  }
+
+  /**
+   * @param parallelLoad if true the YAML resources are read and parsed concurrently on the common
+   *                     fork join pool, they are still added to the properties in the order found
+   */
+  public FileYamlPropertyManager(boolean parallelLoad) {
+    this(parallelLoad, Boolean.getBoolean("ConfigStreamingLoad"));
+  }
+
+  /**
+   * @param parallelLoad  if true the YAML resources are read and parsed concurrently on the common
+   *                      fork join pool, they are still added to the properties in the order found
+   * @param streamingLoad if true each resource is parsed as it is read rather than being loaded into
+   *                      memory first, for very large documents, the loaded properties have no source
+   */
+  public FileYamlPropertyManager(boolean parallelLoad, boolean streamingLoad) {
+    this.parallelLoad = parallelLoad;
+    this.streamingLoad = streamingLoad;
+  }
 
   @Override
   public void load() {
     try {
-      Collection<String> knownProperties = ResourceList.getResources(Pattern.compile(".*yaml"));
+      loadResources(ResourceList.getConfigResources(Pattern.compile(".*yaml")));
+    } catch (IOException e) {
+      logger.log(PROPERTY_MANAGER_SCAN_FAILED, e);
+    }
+  }
+
+  void loadResources(Collection<String> knownProperties) {
+    if (parallelLoad && knownProperties.size() > 1) {
+      loadParallel(knownProperties);
+    } else {
       for (String propertyName : knownProperties) {
         loadProperty(propertyName);
       }
-    } catch (IOException e) {
-      logger.log(PROPERTY_MANAGER_SCAN_FAILED, e);
+    }
+  }
+
+  private void loadParallel(Collection<String> knownProperties) {
+    List<String> names = new ArrayList<>();
+    List<CompletableFuture<ConfigurationProperties>> parsed = new ArrayList<>();
+    for (String resource : knownProperties) {
+      String propertyName = toPropertyName(resource);
+      names.add(propertyName);
+      parsed.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return parse(propertyName);
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      }, ForkJoinPool.commonPool()));
+    }
+
+    // Merge in discovery order, and fail in the same way, so the result is identical to a sequential load
+    for (int x = 0; x < names.size(); x++) {
+      String propertyName = names.get(x);
+      try {
+        mergeProperties(propertyName, parsed.get(x).join());
+        logger.log(PROPERTY_MANAGER_FOUND, propertyName);
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof IOException ioException) {
+          logger.log(PROPERTY_MANAGER_LOAD_FAILED, ioException, propertyName);
+        } else if (e.getCause() instanceof RuntimeException runtimeException) {
+          throw runtimeException;
+        } else {
+          throw e;
+        }
+      }
     }
   }
 
@@ -57,37 +126,45 @@ public class FileYamlPropertyManager extends YamlPropertyManager {
 
   private void loadProperty(String propertyName) {
     try {
-      propertyName = propertyName.substring(propertyName.lastIndexOf(File.separatorChar) + 1);
-      propertyName = propertyName.substring(0, propertyName.indexOf(".yaml"));
-      loadFile(propertyName);
+      propertyName = toPropertyName(propertyName);
+      mergeProperties(propertyName, parse(propertyName));
       logger.log(PROPERTY_MANAGER_FOUND, propertyName);
     } catch (IOException e) {
       logger.log(PROPERTY_MANAGER_LOAD_FAILED, e, propertyName);
     }
   }
 
-  private void loadFile(String propertyName) throws IOException {
+  private String toPropertyName(String resource) {
+    String propertyName = resource.substring(resource.lastIndexOf(File.separatorChar) + 1);
+    return propertyName.substring(0, propertyName.indexOf(".yaml"));
+  }
+
+  private ConfigurationProperties parse(String propertyName) throws IOException {
+    if (!streamingLoad) {
+      return parseYaml(propertyName, readFile(propertyName));
+    }
+    try (Reader reader = new InputStreamReader(openResource(propertyName))) {
+      return parseYaml(propertyName, reader);
+    }
+  }
+
+  private String readFile(String propertyName) throws IOException {
+    try (InputStream is = openResource(propertyName)) {
+      return new String(is.readAllBytes());
+    }
+  }
+
+  InputStream openResource(String propertyName) throws IOException {
     String propResourceName = "/" + propertyName;
     while (propResourceName.contains(".")) {
       propResourceName = propResourceName.replace('.', File.separatorChar);
     }
     propResourceName = propResourceName + ".yaml";
     InputStream is = getClass().getResourceAsStream(propResourceName);
-    if (is != null) {
-      int read = 1;
-      byte[] buffer = new byte[1024];
-      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-      while (read > 0) {
-        read = is.read(buffer);
-        if (read > 0) {
-          byteArrayOutputStream.write(buffer, 0, read);
-        }
-      }
-      is.close();
-      parseAndLoadYaml(propertyName, byteArrayOutputStream.toString());
-    } else {
+    if (is == null) {
       throw new FileNotFoundException("No such resource found " + propResourceName);
     }
+    return is;
   }
 
 }
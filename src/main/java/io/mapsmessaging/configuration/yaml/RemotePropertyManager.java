@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 
 import static io.mapsmessaging.logging.ConfigLogMessages.*;
 
@@ -34,19 +35,123 @@ public abstract class RemotePropertyManager extends YamlPropertyManager {
 
   protected final String serverPrefix;
   private final Logger logger;
+  private volatile int loadParallelism = Math.max(1, Integer.getInteger("ConfigRemoteLoadParallelism", 1));
 
   protected RemotePropertyManager(String serverPrefix, Logger logger) {
     this.serverPrefix = serverPrefix;
     this.logger = logger;
   }
 
+  public int getLoadParallelism() {
+    return loadParallelism;
+  }
+
+  /**
+   * Sets how many keys are read from the server at the same time when a load has to read each key
+   * individually. The values are parsed as they arrive, off the threads reading them, and are
+   * always added to the properties in the order the keys were listed, so the result does not depend
+   * on the parallelism. Defaults to the <code>ConfigRemoteLoadParallelism</code> system property, or 1,
+   * which reads the keys one after another on the calling thread.
+   *
+   * @param loadParallelism the number of concurrent reads, at least 1
+   */
+  public void setLoadParallelism(int loadParallelism) {
+    if (loadParallelism < 1) {
+      throw new IllegalArgumentException("Load parallelism must be at least 1");
+    }
+    this.loadParallelism = loadParallelism;
+  }
+
   @Override
   public void load() {
-    for (String key : getKeys(serverPrefix)) {
+    Map<String, String> values = loadAllValues();
+    if (values != null) {
+      for (Map.Entry<String, String> entry : values.entrySet()) {
+        if (entry.getValue() != null) { // folder keys have no value
+          processValue(entry.getKey(), entry.getValue());
+        }
+      }
+      return;
+    }
+    List<String> keys = getKeys(serverPrefix);
+    int parallelism = Math.min(loadParallelism, keys.size());
+    if (parallelism > 1) {
+      loadConcurrently(keys, parallelism);
+      return;
+    }
+    for (String key : keys) {
       processKey(key);
     }
   }
 
+  private void loadConcurrently(List<String> keys, int parallelism) {
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "RemotePropertyLoader-" + serverPrefix);
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<CompletableFuture<ConfigurationProperties>> parsed = new ArrayList<>();
+      for (String key : keys) {
+        String name = toPropertyName(key);
+        parsed.add(CompletableFuture.supplyAsync(() -> {
+              try {
+                return getValue(key);
+              } catch (IOException e) {
+                throw new CompletionException(e);
+              }
+            }, executor)
+            .thenApplyAsync(value -> {
+              logger.log(REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_SUCCESS, name, value.length());
+              return parseYaml(name, value);
+            }, ForkJoinPool.commonPool()));
+      }
+
+      // Merge in the listed order so the result is identical to a sequential load
+      for (int x = 0; x < keys.size(); x++) {
+        try {
+          mergeProperties(toPropertyName(keys.get(x)), parsed.get(x).join());
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof IOException ioException) {
+            logger.log(REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_EXCEPTION, keys.get(x), ioException);
+          } else if (e.getCause() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+          } else {
+            throw e;
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Map<String, String> loadAllValues() {
+    try {
+      Map<String, String> values = getAllValues(serverPrefix);
+      if (values != null) {
+        logger.log(REMOTE_PROPERTY_MANAGER_BULK_LOAD, values.size(), serverPrefix);
+      }
+      return values;
+    } catch (IOException e) {
+      logger.log(REMOTE_PROPERTY_MANAGER_BULK_LOAD_FAILED, e, serverPrefix);
+    }
+    return null;
+  }
+
+  /**
+   * Reads every key and value under the prefix in as few requests as the server allows, so a load
+   * does not need a request per key.
+   *
+   * @param prefix the key prefix to read
+   * @return the values by key, in the order to load them, or null if the server has no bulk read, in
+   * which case the keys are listed and read one at a time
+   * @throws IOException if the bulk read failed, the keys are then read one at a time
+   */
+  protected Map<String, String> getAllValues(String prefix) throws IOException {
+    return null;
+  }
+
   protected abstract String getValue(String key) throws IOException;
   protected abstract void putValue(String key, String value)throws IOException;
   protected abstract void deleteKey(String key)throws IOException;
@@ -54,16 +159,23 @@ public abstract class RemotePropertyManager extends YamlPropertyManager {
 
   protected void processKey(String key) {
     try {
-      String value = getValue(key);
-      int stripLeadingSlash = (!key.startsWith(serverPrefix) && serverPrefix.startsWith("/")) ? 1 : 0;
-      String name = key.substring(serverPrefix.length()-stripLeadingSlash);
-      logger.log(REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_SUCCESS, name, value.length());
-      parseAndLoadYaml(name, value);
+      processValue(key, getValue(key));
     } catch (IOException awsException) {
       logger.log(REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_EXCEPTION, key, awsException);
     }
   }
 
+  private void processValue(String key, String value) {
+    String name = toPropertyName(key);
+    logger.log(REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_SUCCESS, name, value.length());
+    parseAndLoadYaml(name, value);
+  }
+
+  protected String toPropertyName(String key) {
+    int stripLeadingSlash = (!key.startsWith(serverPrefix) && serverPrefix.startsWith("/")) ? 1 : 0;
+    return key.substring(serverPrefix.length() - stripLeadingSlash);
+  }
+
   @Override
   public void storeAll(String name) throws IOException {
     logger.log(REMOTE_PROPERTY_MANAGER_STORE, serverPrefix, name);
@@ -85,6 +197,7 @@ public abstract class RemotePropertyManager extends YamlPropertyManager {
 
     // Now let's add the new config
     properties.clear();
+    clearSnapshots();
     properties.putAll(propertyManager.getProperties().getMap());
     for (String key : properties.keySet()) {
       ConfigurationProperties copy = (ConfigurationProperties) properties.get(key);
@@ -0,0 +1,247 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import io.mapsmessaging.configuration.LazySection;
+import io.mapsmessaging.configuration.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a {@link ConfigurationProperties} tree directly from the object graph returned by
+ * <code>Yaml.load()</code> in a single walk.
+ * <p>
+ * The result is the same as converting the document to a JSON tree, reading it back into maps,
+ * collapsing the single entry lists and then copying the maps into the configuration, numbers are
+ * held as doubles, null values are dropped, a list holding a single value is replaced by that value
+ * while following nested maps, and lists only retain their map entries. It just does not build the
+ * three intermediate copies of the document to get there.
+ * <p>
+ * When built lazily only the first level of each section is added, every nested map and list is
+ * held in its loaded form in a {@link LazySection} and converted the first time it is read.
+ */
+@SuppressWarnings("java:S3740")
+public final class YamlConfigurationBuilder {
+
+  private static final String GLOBAL = "global";
+  private static final String LOADED = "loaded";
+
+  private YamlConfigurationBuilder() {
+  }
+
+  /**
+   * Builds the configuration for a loaded YAML document.
+   *
+   * @param propertyName the name the configuration is being loaded under, its section is stamped with the load time
+   * @param document     the result of <code>Yaml.load()</code>
+   * @return the populated configuration, without a source or path index
+   */
+  public static ConfigurationProperties build(String propertyName, Object document) {
+    return build(propertyName, document, false);
+  }
+
+  /**
+   * Builds the configuration for a loaded YAML document, optionally deferring the nested sections.
+   *
+   * @param propertyName the name the configuration is being loaded under, its section is stamped with the load time
+   * @param document     the result of <code>Yaml.load()</code>, when lazy it must not be changed afterwards
+   * @param lazy         if true nested maps and lists are only converted when first read
+   * @return the populated configuration, without a source or path index
+   */
+  public static ConfigurationProperties build(String propertyName, Object document, boolean lazy) {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties(lazy);
+    if (!(document instanceof Map<?, ?> root)) {
+      return configurationProperties;
+    }
+    for (Map.Entry<?, ?> item : root.entrySet()) {
+      if (item.getValue() != null) {
+        String name = keyOf(item.getKey());
+        Map<?, ?> entries = (Map<?, ?>) collapse(item.getValue());
+        Section section = new Section(configurationProperties, name.equals(propertyName), lazy);
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+          section.add(keyOf(entry.getKey()), entry.getValue());
+        }
+        section.complete();
+      }
+    }
+    return configurationProperties;
+  }
+
+  static ConfigurationProperties buildMap(Map<?, ?> map, boolean collapseLists, boolean lazy) {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties(lazy);
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (entry.getValue() != null) {
+        Object value = collapseLists ? collapse(entry.getValue()) : normalise(entry.getValue());
+        add(configurationProperties, keyOf(entry.getKey()), value, collapseLists, null, lazy);
+      }
+    }
+    return configurationProperties;
+  }
+
+  /**
+   * Adds an already collapsed or normalised value, any configuration created for a map, either
+   * directly or as a list entry, or the lazy section holding them, is added to <code>created</code>
+   * when supplied.
+   */
+  static void add(ConfigurationProperties parent, String key, Object value, boolean collapseLists, List<Object> created, boolean lazy) {
+    if (lazy && (value instanceof Map || value instanceof List)) {
+      LazySection section = new LazySection(value, global -> materialise(value, collapseLists, global));
+      track(created, section);
+      parent.put(key, section);
+    } else if (value instanceof Map<?, ?> map) {
+      ConfigurationProperties child = buildMap(map, collapseLists, lazy);
+      track(created, child);
+      parent.put(key, child);
+    } else if (value instanceof List<?> list) {
+      // Only the maps in a list are retained, once in a list, single entry lists are left as they are
+      List<Object> children = new ArrayList<>(list.size());
+      for (Object item : list) {
+        addElement(children, item, created, lazy);
+      }
+      parent.put(key, children);
+    } else {
+      parent.put(key, value);
+    }
+  }
+
+  static void addElement(List<Object> children, Object item, List<Object> created, boolean lazy) {
+    if (normalise(item) instanceof Map<?, ?> map) {
+      ConfigurationProperties child = buildMap(map, false, lazy);
+      track(created, child);
+      children.add(child);
+    }
+  }
+
+  static void track(List<Object> created, Object child) {
+    if (created != null) {
+      created.add(child);
+    }
+  }
+
+  private static Object materialise(Object value, boolean collapseLists, ConfigurationProperties global) {
+    if (value instanceof Map<?, ?> map) {
+      ConfigurationProperties child = buildMap(map, collapseLists, true);
+      child.setGlobal(global);
+      return child;
+    }
+    List<Object> children = new ArrayList<>();
+    for (Object item : (List<?>) value) {
+      addElement(children, item, null, true);
+    }
+    for (Object child : children) {
+      ((ConfigurationProperties) child).setGlobal(global);
+    }
+    return children;
+  }
+
+  static Object collapse(Object value) {
+    Object normalised = normalise(value);
+    if (normalised instanceof List<?> list && list.size() == 1) {
+      return normalise(list.get(0));
+    }
+    return normalised;
+  }
+
+  static Object normalise(Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean || value instanceof Map || value instanceof List) {
+      return value;
+    }
+    if (value instanceof Number number) {
+      return number.doubleValue();
+    }
+    // Sets, binary and timestamps take the same shape they would have after a round trip through JSON
+    SystemProperties systemProperties = SystemProperties.getInstance();
+    return systemProperties.getGson().fromJson(systemProperties.getGson().toJsonTree(value), Object.class);
+  }
+
+  static String keyOf(Object key) {
+    return String.valueOf(key);
+  }
+
+  /**
+   * The entries of a top level section are added to the root configuration, the section's global
+   * entry becomes the root global, shared by every map at the first level, and the section being
+   * loaded is stamped with its load time.
+   */
+  static final class Section {
+
+    private final ConfigurationProperties configurationProperties;
+    private final boolean stamp;
+    private final boolean lazy;
+    private final List<Object> created;
+    private boolean stamped;
+
+    Section(ConfigurationProperties configurationProperties, boolean stamp, boolean lazy) {
+      this.configurationProperties = configurationProperties;
+      this.stamp = stamp;
+      this.lazy = lazy;
+      created = new ArrayList<>();
+    }
+
+    /**
+     * @return true if the key is handled by the section itself and its value must be supplied to
+     * {@link #add(String, Object)} rather than added directly
+     */
+    boolean isSpecial(String key) {
+      return key.equals(GLOBAL) || (stamp && key.equals(LOADED));
+    }
+
+    ConfigurationProperties getConfigurationProperties() {
+      return configurationProperties;
+    }
+
+    List<Object> getCreated() {
+      return created;
+    }
+
+    void add(String key, Object raw) {
+      if (raw == null) {
+        return;
+      }
+      Object value = collapse(raw);
+      if (value != null && key.equals(GLOBAL)) {
+        configurationProperties.setGlobal(buildMap((Map<?, ?>) value, true, false));
+      } else if (stamp && key.equals(LOADED)) {
+        configurationProperties.put(LOADED, System.currentTimeMillis());
+        stamped = true;
+      } else {
+        YamlConfigurationBuilder.add(configurationProperties, key, value, true, created, lazy);
+      }
+    }
+
+    void complete() {
+      if (stamp && !stamped) {
+        configurationProperties.put(LOADED, System.currentTimeMillis());
+      }
+      ConfigurationProperties global = configurationProperties.getGlobal();
+      for (Object child : created) {
+        if (child instanceof LazySection section) {
+          section.setGlobal(global);
+        } else {
+          ((ConfigurationProperties) child).setGlobal(global);
+        }
+      }
+    }
+  }
+}
@@ -19,9 +19,11 @@
 
 package io.mapsmessaging.configuration.yaml;
 
+import io.mapsmessaging.configuration.ConfigurationChangeListener;
 import io.mapsmessaging.configuration.ConfigurationProperties;
 import io.mapsmessaging.configuration.PropertyManager;
-import io.mapsmessaging.configuration.parsers.JsonParser;
+import io.mapsmessaging.logging.Logger;
+import io.mapsmessaging.logging.LoggerFactory;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
@@ -29,37 +31,169 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.mapsmessaging.logging.ConfigLogMessages.PROPERTY_MANAGER_LISTENER_FAILED;
+import static io.mapsmessaging.logging.ConfigLogMessages.PROPERTY_MANAGER_RELOADED;
 
 @SuppressWarnings("java:S3740")
 public abstract class YamlPropertyManager extends PropertyManager {
 
   private static final String GLOBAL = "global";
+  private static final String LOADED = "loaded";
+
+  private final Logger logger = LoggerFactory.getLogger(YamlPropertyManager.class);
+  private final List<ConfigurationChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+  private volatile boolean lazySections = Boolean.getBoolean("ConfigLazySections");
+
+  public boolean isLazySections() {
+    return lazySections;
+  }
+
+  /**
+   * When enabled, documents parsed from a string only convert the first level of each section up
+   * front, nested sections are kept as parsed and converted the first time they are read, and no
+   * path index is built. Streamed documents are always fully converted. Defaults to the
+   * <code>ConfigLazySections</code> system property.
+   *
+   * @param lazySections true to defer the nested sections
+   */
+  public void setLazySections(boolean lazySections) {
+    this.lazySections = lazySections;
+  }
 
   protected void parseAndLoadYaml(String propertyName, String yamlString) {
+    mergeProperties(propertyName, parseYaml(propertyName, yamlString));
+  }
+
+  /**
+   * Parses the YAML into a new, fully built configuration without touching the loaded properties, so
+   * it is safe to call for several documents at once.
+   *
+   * @param propertyName the name the configuration will be loaded under
+   * @param yamlString   the YAML document
+   * @return the parsed configuration, ready to be passed to {@link #mergeProperties(String, ConfigurationProperties)}
+   */
+  protected ConfigurationProperties parseYaml(String propertyName, String yamlString) {
     Yaml yaml = new Yaml();
-    JsonParser parser = new YamlParser(yaml.load(yamlString));
-    Map<String, Object> response = parser.parse();
-    Object topLevel = response.get(propertyName);
-    if (topLevel instanceof Map map) {
-      Map<String, Object> root = map;
-      root.put("loaded", System.currentTimeMillis());
+    boolean lazy = lazySections;
+    ConfigurationProperties configurationProperties = YamlConfigurationBuilder.build(propertyName, yaml.load(yamlString), lazy);
+    configurationProperties.setSource(yamlString);
+    if (!lazy) {
+      // Indexing visits every entry, which would build every deferred section
+      configurationProperties.buildPathIndex();
     }
-    ConfigurationProperties configurationProperties = new ConfigurationProperties();
-    for (Entry<String, Object> item : response.entrySet()) {
-      Map<String, Object> entry = (Map<String, Object>) item.getValue();
-      if (entry.get(GLOBAL) != null) {
-        Map<String, Object> global = (Map<String, Object>) entry.remove(GLOBAL);
-        configurationProperties.setGlobal(new ConfigurationProperties(global));
+    return configurationProperties;
+  }
+
+  /**
+   * Parses the YAML as it is read, without holding the document or its loaded object graph in memory,
+   * the result is the same as {@link #parseYaml(String, String)} but has no source.
+   *
+   * @param propertyName the name the configuration will be loaded under
+   * @param reader       the YAML document, not closed by this call
+   * @return the parsed configuration, ready to be passed to {@link #mergeProperties(String, ConfigurationProperties)}
+   */
+  protected ConfigurationProperties parseYaml(String propertyName, Reader reader) {
+    ConfigurationProperties configurationProperties = YamlStreamLoader.load(propertyName, reader);
+    configurationProperties.buildPathIndex();
+    return configurationProperties;
+  }
+
+  protected void mergeProperties(String propertyName, ConfigurationProperties configurationProperties) {
+    properties.put(propertyName, configurationProperties);
+    publishSnapshot(propertyName);
+  }
+
+  public void addChangeListener(ConfigurationChangeListener listener) {
+    changeListeners.add(listener);
+  }
+
+  public void removeChangeListener(ConfigurationChangeListener listener) {
+    changeListeners.remove(listener);
+  }
+
+  /**
+   * Re-parses a changed document and applies only the differences to the loaded configuration, so
+   * the nested configurations that did not change, and any references held to them, stay as they
+   * are. The change listeners are then called with the paths that changed, if there were any. The
+   * load time stamp is updated but is not reported as a change.
+   * <p>
+   * The entries are updated in place, readers that need a consistent view while a reload is in
+   * progress should use {@link #getSnapshot(String)}, which is replaced once the reload completes.
+   *
+   * @param propertyName the name the configuration is loaded under
+   * @param yamlString   the updated YAML document
+   * @return the paths that changed, relative to the named configuration
+   */
+  public synchronized List<String> reload(String propertyName, String yamlString) {
+    ConfigurationProperties updated = parseYaml(propertyName, yamlString);
+    List<String> changes;
+    if (properties.get(propertyName) instanceof ConfigurationProperties current) {
+      changes = current.mergeChanges(updated);
+      changes.remove(LOADED);
+      mergeGlobal(current, updated.getGlobal(), changes);
+      current.setSource(yamlString);
+      if (!lazySections) {
+        current.buildPathIndex();
       }
-      configurationProperties.putAll(entry);
+      publishSnapshot(propertyName);
+    } else {
+      mergeProperties(propertyName, updated);
+      changes = new ArrayList<>(updated.keySet());
+      changes.remove(LOADED);
     }
-    configurationProperties.setSource(yamlString);
-    properties.put(propertyName, configurationProperties);
+    logger.log(PROPERTY_MANAGER_RELOADED, propertyName, changes.size());
+    notifyListeners(propertyName, changes);
+    return changes;
+  }
+
+  /**
+   * Removes a loaded configuration, for example when its source has been deleted, the change
+   * listeners are called with every entry it held.
+   *
+   * @param propertyName the name the configuration is loaded under
+   */
+  protected synchronized void unload(String propertyName) {
+    Object removed = properties.remove(propertyName);
+    if (removed instanceof ConfigurationProperties configurationProperties) {
+      publishSnapshot(propertyName);
+      List<String> changes = new ArrayList<>(configurationProperties.keySet());
+      changes.remove(LOADED);
+      logger.log(PROPERTY_MANAGER_RELOADED, propertyName, changes.size());
+      notifyListeners(propertyName, changes);
+    }
+  }
+
+  private void notifyListeners(String propertyName, List<String> changes) {
+    if (!changes.isEmpty()) {
+      List<String> changedPaths = Collections.unmodifiableList(changes);
+      for (ConfigurationChangeListener listener : changeListeners) {
+        try {
+          listener.configurationChanged(propertyName, changedPaths);
+        } catch (RuntimeException e) {
+          logger.log(PROPERTY_MANAGER_LISTENER_FAILED, e, propertyName);
+        }
+      }
+    }
+  }
+
+  // The global is updated in place where there is one, then shared by the first level entries as it is on a load
+  private void mergeGlobal(ConfigurationProperties current, ConfigurationProperties updatedGlobal, List<String> changes) {
+    ConfigurationProperties global = current.getGlobal();
+    if (global != null) {
+      for (String path : global.mergeChanges(updatedGlobal != null ? updatedGlobal : new ConfigurationProperties())) {
+        changes.add(GLOBAL + "." + path);
+      }
+    } else if (updatedGlobal != null) {
+      global = updatedGlobal;
+      current.setGlobal(global);
+      changes.add(GLOBAL);
+    }
+    current.shareGlobal(global);
   }
 
   @Override
@@ -134,6 +268,7 @@ public abstract class YamlPropertyManager extends PropertyManager {
   public void copy(PropertyManager propertyManager) throws IOException {
     HashMap<String, Object> data = new LinkedHashMap<>(propertyManager.getProperties().getMap());
     properties.clear();
+    clearSnapshots();
     properties.putAll(data);
     properties.setGlobal(properties.getGlobal());
   }
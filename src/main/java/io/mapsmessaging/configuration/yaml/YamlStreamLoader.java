@@ -0,0 +1,504 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Construct;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Loads a YAML document into {@link ConfigurationProperties} directly from the SnakeYAML parse
+ * events, without holding the document text, the node graph or the loaded object graph in memory.
+ * <p>
+ * The result is the same as {@link YamlConfigurationBuilder#build(String, Object)} on the loaded
+ * document. Maps are built in place as their events arrive, only the values that have to be kept
+ * are held in their loaded form, anchored nodes so that aliases and merge keys can refer to them,
+ * the global and load time entries, the first entry of a list until it is known whether the list
+ * holds a single entry and collapses into it, and the rest of a map from its first merge key, since
+ * any later key, including an explicit null, still replaces the merged entry in its place.
+ * <p>
+ * A key repeated within a map takes the place and value of its last occurrence, an explicit null
+ * removing it, as it would after <code>Yaml.load()</code>. The one exception is a section name
+ * repeated at the top level of the document, the entries of both sections are loaded.
+ * <p>
+ * Since the document is never held as a whole the YAML code point limit is lifted, the nesting
+ * depth and alias limits of the default loader still apply.
+ */
+@SuppressWarnings("java:S3740")
+public final class YamlStreamLoader {
+
+  private static final String SET = Tag.SET.getValue();
+  private static final String MAP = Tag.MAP.getValue();
+  private static final String SEQ = Tag.SEQ.getValue();
+  private static final String OMAP = Tag.OMAP.getValue();
+  private static final String PAIRS = Tag.PAIRS.getValue();
+
+  private final LoaderOptions loaderOptions;
+  private final Iterator<Event> events;
+  private final Resolver resolver;
+  private final ScalarConstructor constructor;
+  private final Map<String, Object> anchors;
+  private int depth;
+  private int collectionAliases;
+
+  private YamlStreamLoader(Reader reader) {
+    loaderOptions = new LoaderOptions();
+    loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+    events = new Yaml(loaderOptions).parse(reader).iterator();
+    resolver = new Resolver();
+    constructor = new ScalarConstructor(loaderOptions);
+    anchors = new HashMap<>();
+  }
+
+  /**
+   * Loads a single YAML document from the reader, the reader is not closed.
+   *
+   * @param propertyName the name the configuration is being loaded under, its section is stamped with the load time
+   * @param reader       the YAML document
+   * @return the populated configuration, without a source or path index
+   */
+  public static ConfigurationProperties load(String propertyName, Reader reader) {
+    return new YamlStreamLoader(reader).loadDocument(propertyName);
+  }
+
+  private ConfigurationProperties loadDocument(String propertyName) {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    expect(next(), StreamStartEvent.class);
+    Event event = next();
+    if (event instanceof StreamEndEvent) {
+      return configurationProperties;
+    }
+    expect(event, DocumentStartEvent.class);
+    Event root = next();
+    if (isPlain(root, MappingStartEvent.class, MAP)) {
+      loadSections(configurationProperties, propertyName);
+    } else {
+      configurationProperties = YamlConfigurationBuilder.build(propertyName, readValue(root));
+    }
+    expect(next(), DocumentEndEvent.class);
+    event = next();
+    if (!(event instanceof StreamEndEvent)) {
+      throw new YAMLException("expected a single document in the stream " + event.getStartMark());
+    }
+    return configurationProperties;
+  }
+
+  private void loadSections(ConfigurationProperties configurationProperties, String propertyName) {
+    enter();
+    Set<String> names = new HashSet<>();
+    Event event;
+    while (!((event = next()) instanceof MappingEndEvent)) {
+      if (isMergeKey(event)) {
+        // The entries of a section are spread across the root, so a section already loaded stays
+        for (Map.Entry<?, ?> entry : readMerged(event, names, name -> {}).entrySet()) {
+          if (entry.getValue() != null) {
+            loadSection(configurationProperties, propertyName, YamlConfigurationBuilder.keyOf(entry.getKey()), entry.getValue());
+          }
+        }
+        break;
+      } else {
+        String name = readKey(event);
+        names.add(name);
+        Event value = next();
+        if (isPlain(value, MappingStartEvent.class, MAP)) {
+          YamlConfigurationBuilder.Section section = new YamlConfigurationBuilder.Section(configurationProperties, name.equals(propertyName), false);
+          streamSection(section);
+          section.complete();
+        } else {
+          Object raw = readValue(value);
+          if (raw != null) {
+            loadSection(configurationProperties, propertyName, name, raw);
+          }
+        }
+      }
+    }
+    leave();
+  }
+
+  private void loadSection(ConfigurationProperties configurationProperties, String propertyName, String name, Object raw) {
+    YamlConfigurationBuilder.Section section = new YamlConfigurationBuilder.Section(configurationProperties, name.equals(propertyName), false);
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) YamlConfigurationBuilder.collapse(raw)).entrySet()) {
+      section.add(YamlConfigurationBuilder.keyOf(entry.getKey()), entry.getValue());
+    }
+    section.complete();
+  }
+
+  private void streamSection(YamlConfigurationBuilder.Section section) {
+    enter();
+    ConfigurationProperties configurationProperties = section.getConfigurationProperties();
+    Set<String> keys = new HashSet<>();
+    Event event;
+    while (!((event = next()) instanceof MappingEndEvent)) {
+      if (isMergeKey(event)) {
+        Consumer<String> remove = key -> unstream(section, key);
+        for (Map.Entry<?, ?> entry : readMerged(event, keys, remove).entrySet()) {
+          section.add(YamlConfigurationBuilder.keyOf(entry.getKey()), entry.getValue());
+        }
+        break;
+      } else {
+        String key = readKey(event);
+        if (!keys.add(key)) {
+          unstream(section, key);
+        }
+        Event value = next();
+        if (section.isSpecial(key)) {
+          section.add(key, readValue(value));
+        } else {
+          streamValue(configurationProperties, key, value, true, section.getCreated());
+        }
+      }
+    }
+    leave();
+  }
+
+  private ConfigurationProperties streamMap(boolean collapseLists) {
+    enter();
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    Set<String> keys = new HashSet<>();
+    Event event;
+    while (!((event = next()) instanceof MappingEndEvent)) {
+      if (isMergeKey(event)) {
+        for (Map.Entry<?, ?> entry : readMerged(event, keys, configurationProperties::remove).entrySet()) {
+          if (entry.getValue() != null) {
+            addValue(configurationProperties, YamlConfigurationBuilder.keyOf(entry.getKey()), entry.getValue(), collapseLists, null);
+          }
+        }
+        break;
+      } else {
+        String key = readKey(event);
+        if (!keys.add(key)) {
+          // A repeated key moves to its last occurrence and is dropped if that is a null
+          configurationProperties.remove(key);
+        }
+        streamValue(configurationProperties, key, next(), collapseLists, null);
+      }
+    }
+    leave();
+    return configurationProperties;
+  }
+
+  private void streamValue(ConfigurationProperties parent, String key, Event event, boolean collapseLists, List<Object> created) {
+    if (isPlain(event, MappingStartEvent.class, MAP)) {
+      ConfigurationProperties child = streamMap(collapseLists);
+      YamlConfigurationBuilder.track(created, child);
+      parent.put(key, child);
+    } else if (isPlain(event, SequenceStartEvent.class, SEQ)) {
+      streamSequence(parent, key, collapseLists, created);
+    } else {
+      Object raw = readValue(event);
+      if (raw != null) {
+        addValue(parent, key, raw, collapseLists, created);
+      }
+    }
+  }
+
+  private void addValue(ConfigurationProperties parent, String key, Object raw, boolean collapseLists, List<Object> created) {
+    Object value = collapseLists ? YamlConfigurationBuilder.collapse(raw) : YamlConfigurationBuilder.normalise(raw);
+    YamlConfigurationBuilder.add(parent, key, value, collapseLists, created, false);
+  }
+
+  private void streamSequence(ConfigurationProperties parent, String key, boolean collapseLists, List<Object> created) {
+    enter();
+    List<Object> children = new ArrayList<>();
+    Event event = next();
+    if (collapseLists && !(event instanceof SequenceEndEvent)) {
+      // Until the second entry arrives the list may still collapse into its first entry
+      Object first = readValue(event);
+      event = next();
+      if (event instanceof SequenceEndEvent) {
+        leave();
+        YamlConfigurationBuilder.add(parent, key, YamlConfigurationBuilder.normalise(first), true, created, false);
+        return;
+      }
+      YamlConfigurationBuilder.addElement(children, first, created, false);
+    }
+    while (!(event instanceof SequenceEndEvent)) {
+      if (isPlain(event, MappingStartEvent.class, MAP)) {
+        ConfigurationProperties child = streamMap(false);
+        YamlConfigurationBuilder.track(created, child);
+        children.add(child);
+      } else {
+        YamlConfigurationBuilder.addElement(children, readValue(event), created, false);
+      }
+      event = next();
+    }
+    leave();
+    parent.put(key, children);
+  }
+
+  // Builds the value in the form Yaml.load() would return it
+  private Object readValue(Event event) {
+    if (event instanceof AliasEvent alias) {
+      return resolveAlias(alias);
+    }
+    if (event instanceof ScalarEvent scalar) {
+      Object value = constructScalar(scalar);
+      anchor(scalar, value);
+      return value;
+    }
+    if (event instanceof SequenceStartEvent sequence) {
+      return readSequence(sequence);
+    }
+    if (event instanceof MappingStartEvent mapping) {
+      return readMapping(mapping);
+    }
+    throw new YAMLException("unexpected " + event + " " + event.getStartMark());
+  }
+
+  private Object readSequence(SequenceStartEvent sequence) {
+    enter();
+    String tag = sequence.getTag();
+    Object result;
+    if (tag == null || tag.equals("!") || SEQ.equals(tag)) {
+      List<Object> list = new ArrayList<>();
+      anchor(sequence, list);
+      Event item;
+      while (!((item = next()) instanceof SequenceEndEvent)) {
+        list.add(readValue(item));
+      }
+      result = list;
+    } else if (OMAP.equals(tag) || PAIRS.equals(tag)) {
+      // Ordered maps and pairs are lists of single entry maps, loaded as a map and as key value arrays
+      boolean omap = OMAP.equals(tag);
+      Map<Object, Object> map = omap ? new LinkedHashMap<>() : null;
+      List<Object[]> pairs = omap ? null : new ArrayList<>();
+      anchor(sequence, omap ? map : pairs);
+      Event item;
+      while (!((item = next()) instanceof SequenceEndEvent)) {
+        if (!(readValue(item) instanceof Map<?, ?> pair) || pair.size() != 1) {
+          throw new YAMLException("expected a single mapping item in " + tag + " " + item.getStartMark());
+        }
+        Map.Entry<?, ?> entry = pair.entrySet().iterator().next();
+        if (omap) {
+          map.put(entry.getKey(), entry.getValue());
+        } else {
+          pairs.add(new Object[]{entry.getKey(), entry.getValue()});
+        }
+      }
+      result = omap ? map : pairs;
+    } else {
+      throw new YAMLException("could not determine a constructor for the tag " + tag + " " + sequence.getStartMark());
+    }
+    leave();
+    return result;
+  }
+
+  private Object readMapping(MappingStartEvent mapping) {
+    enter();
+    String tag = mapping.getTag();
+    boolean set = SET.equals(tag);
+    if (!set && tag != null && !tag.equals("!") && !MAP.equals(tag)) {
+      throw new YAMLException("could not determine a constructor for the tag " + tag + " " + mapping.getStartMark());
+    }
+    Map<Object, Object> map = new LinkedHashMap<>();
+    Set<Object> keys = set ? new LinkedHashSet<>() : null;
+    anchor(mapping, set ? keys : map);
+    if (set) {
+      Event event;
+      while (!((event = next()) instanceof MappingEndEvent)) {
+        keys.add(readValue(event));
+        readValue(next());
+      }
+    } else {
+      readEntries(map, next(), Set.of(), key -> {});
+    }
+    leave();
+    return set ? keys : map;
+  }
+
+  // Unlike the other keys of a section, the global and load time entries are not added to the root
+  private static void unstream(YamlConfigurationBuilder.Section section, String key) {
+    if (!section.isSpecial(key)) {
+      section.getConfigurationProperties().remove(key);
+    }
+  }
+
+  // Reads the rest of a map from its first merge key, the streamed keys repeated later are removed
+  private Map<Object, Object> readMerged(Event mergeKey, Set<String> streamed, Consumer<String> remove) {
+    Map<Object, Object> map = new LinkedHashMap<>();
+    readEntries(map, mergeKey, streamed, remove);
+    return map;
+  }
+
+  // Resolves the entries as Yaml.load() does. Only the last occurrence of a repeated key is kept,
+  // then the entries are applied in order, a merge only adding the keys not yet present, even over
+  // a null, and every other key replacing the entry in its place. The keys already streamed count
+  // as present, unless repeated here
+  private void readEntries(Map<Object, Object> map, Event first, Set<String> streamed, Consumer<String> remove) {
+    List<Object[]> entries = new ArrayList<>();
+    Map<Object, Integer> lastExplicit = new HashMap<>();
+    for (Event event = first; !(event instanceof MappingEndEvent); event = next()) {
+      if (isMergeKey(event)) {
+        entries.add(new Object[]{event, mergeSources(next())});
+      } else {
+        Object key = readValue(event);
+        lastExplicit.put(key, entries.size());
+        entries.add(new Object[]{key, readValue(next())});
+      }
+    }
+
+    Set<String> present = new HashSet<>(streamed);
+    for (Object key : lastExplicit.keySet()) {
+      String name = YamlConfigurationBuilder.keyOf(key);
+      if (present.remove(name)) {
+        remove.accept(name);
+      }
+    }
+    for (int x = 0; x < entries.size(); x++) {
+      Object[] entry = entries.get(x);
+      if (entry[0] instanceof Event) {
+        for (Object merged : (List<?>) entry[1]) {
+          for (Map.Entry<?, ?> mergedEntry : ((Map<?, ?>) merged).entrySet()) {
+            if (!map.containsKey(mergedEntry.getKey()) && !present.contains(YamlConfigurationBuilder.keyOf(mergedEntry.getKey()))) {
+              map.put(mergedEntry.getKey(), mergedEntry.getValue());
+            }
+          }
+        }
+      } else if (lastExplicit.get(entry[0]) == x) {
+        map.put(entry[0], entry[1]);
+      }
+    }
+  }
+
+  private List<Map<?, ?>> mergeSources(Event event) {
+    Object value = readValue(event);
+    List<Map<?, ?>> sources = new ArrayList<>();
+    if (value instanceof Map<?, ?> map) {
+      sources.add(map);
+    } else if (value instanceof List<?> list) {
+      for (Object item : list) {
+        if (!(item instanceof Map<?, ?> map)) {
+          throw new YAMLException("expected a mapping for merging, but found " + item + " " + event.getStartMark());
+        }
+        sources.add(map);
+      }
+    } else {
+      throw new YAMLException("expected a mapping or list of mappings for merging, but found " + value + " " + event.getStartMark());
+    }
+    return sources;
+  }
+
+  private String readKey(Event event) {
+    return YamlConfigurationBuilder.keyOf(readValue(event));
+  }
+
+  private boolean isMergeKey(Event event) {
+    return event instanceof ScalarEvent scalar && Tag.MERGE.equals(resolveTag(scalar));
+  }
+
+  private Object resolveAlias(AliasEvent alias) {
+    if (!anchors.containsKey(alias.getAnchor())) {
+      throw new YAMLException("found undefined alias " + alias.getAnchor() + " " + alias.getStartMark());
+    }
+    Object value = anchors.get(alias.getAnchor());
+    if ((value instanceof Map || value instanceof Collection)
+        && ++collectionAliases > loaderOptions.getMaxAliasesForCollections()) {
+      throw new YAMLException("Number of aliases for non-scalar nodes exceeds the specified max=" + loaderOptions.getMaxAliasesForCollections());
+    }
+    return value;
+  }
+
+  private void anchor(NodeEvent event, Object value) {
+    if (event.getAnchor() != null) {
+      anchors.put(event.getAnchor(), value);
+    }
+  }
+
+  private Object constructScalar(ScalarEvent scalar) {
+    Tag tag = resolveTag(scalar);
+    boolean resolved = scalar.getTag() == null || scalar.getTag().equals("!");
+    if (Tag.STR.equals(tag)) {
+      return scalar.getValue();
+    }
+    if (Tag.NULL.equals(tag)) {
+      return null;
+    }
+    return constructor.construct(new ScalarNode(tag, resolved, scalar.getValue(), scalar.getStartMark(), scalar.getEndMark(), scalar.getScalarStyle()));
+  }
+
+  private Tag resolveTag(ScalarEvent scalar) {
+    String tag = scalar.getTag();
+    if (tag == null || tag.equals("!")) {
+      return resolver.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar());
+    }
+    return new Tag(tag);
+  }
+
+  private boolean isPlain(Event event, Class<? extends CollectionStartEvent> type, String defaultTag) {
+    if (!type.isInstance(event)) {
+      return false;
+    }
+    CollectionStartEvent start = (CollectionStartEvent) event;
+    String tag = start.getTag();
+    return start.getAnchor() == null && (tag == null || tag.equals("!") || tag.equals(defaultTag));
+  }
+
+  private void enter() {
+    if (++depth > loaderOptions.getNestingDepthLimit()) {
+      throw new YAMLException("Nesting Depth exceeded max " + loaderOptions.getNestingDepthLimit());
+    }
+  }
+
+  private void leave() {
+    depth--;
+  }
+
+  private Event next() {
+    if (!events.hasNext()) {
+      throw new YAMLException("unexpected end of stream");
+    }
+    return events.next();
+  }
+
+  private static void expect(Event event, Class<? extends Event> type) {
+    if (!type.isInstance(event)) {
+      throw new YAMLException("expected " + type.getSimpleName() + " but found " + event + " " + event.getStartMark());
+    }
+  }
+
+  // Constructs scalars with the same rules as Yaml.load(), without tracking every constructed node
+  private static final class ScalarConstructor extends SafeConstructor {
+
+    private ScalarConstructor(LoaderOptions loaderOptions) {
+      super(loaderOptions);
+    }
+
+    private Object construct(ScalarNode node) {
+      Construct construct = yamlConstructors.get(node.getTag());
+      if (construct == null) {
+        construct = yamlConstructors.get(null);
+      }
+      return construct.construct(node);
+    }
+  }
+}
@@ -39,8 +39,13 @@ public enum ConfigLogMessages implements LogMessage {
   PROPERTY_MANAGER_COMPLETED_INDEX(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Completed indexed property with {} for index {}"),
   PROPERTY_MANAGER_SCAN_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Failed to scan for property files"),
   PROPERTY_MANAGER_LOAD_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Failed to load property {}"),
+  PROPERTY_MANAGER_RELOADED(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Reloaded property {}, {} entries changed"),
+  PROPERTY_MANAGER_LISTENER_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Change listener failed for property {}"),
   PROPERTY_MANAGER_ENTRY_LOOKUP(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Lookup for {} found {} in {}"),
   PROPERTY_MANAGER_ENTRY_LOOKUP_FAILED(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Lookup for {} not found, returning default {}"),
+  RESOURCE_INDEX_LOADED(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Loaded resource index {} covering {} jars"),
+  RESOURCE_INDEX_LOAD_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Unable to load resource index {}, rescanning the classpath"),
+  RESOURCE_INDEX_STORE_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Unable to store resource index {}"),
   PROPERTY_SMART_QUOTES_DETECTED(LEVEL.FATAL, CONFIG_CATEGORY.CONFIGURATION, "Detected smart quotes for key {}, please use normal quotes for for strings, converted {} to {}"),
 
   //</editor-fold>
@@ -63,12 +68,20 @@ public enum ConfigLogMessages implements LogMessage {
   CONSUL_MANAGER_START_ABORTED(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Startup aborted due to configuration, id {}"),
   CONSUL_MANAGER_START_DELAYED(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Startup delaying server startup due to configuration for id {}"),
   CONSUL_MANAGER_START_SERVER_NOT_FOUND(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Startup aborted since Consul Server is not responding, id {}"),
+  CONSUL_WATCH_STARTED(LEVEL.INFO, CONFIG_CATEGORY.CONFIGURATION, "Watching Consul prefix {} for changes"),
+  CONSUL_WATCH_STOPPED(LEVEL.INFO, CONFIG_CATEGORY.CONFIGURATION, "Stopped watching Consul prefix {}"),
+  CONSUL_WATCH_CHANGES(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Consul prefix {} changed, {} keys written, {} keys removed"),
+  CONSUL_WATCH_INDEX_RESET(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Consul index for prefix {} went backwards, resetting the watch"),
+  CONSUL_WATCH_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Watch on Consul prefix {} failed, retrying in {} seconds"),
+  CONSUL_WATCH_UPDATE_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Failed to apply the watched change to key {}"),
   //</editor-fold>
 
   //<editor-fold desc="AWS Key/Value management log messages">
   REMOTE_PROPERTY_MANAGER_NO_KEY_VALUES(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "No keys found in AWS Key/Value for id {}"),
   REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_EXCEPTION(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Key {}, lookup failed with exception"),
   REMOTE_PROPERTY_MANAGER_KEY_LOOKUP_SUCCESS(LEVEL.INFO, CONFIG_CATEGORY.CONFIGURATION, "Key {}, lookup success, returned {} bytes"),
+  REMOTE_PROPERTY_MANAGER_BULK_LOAD(LEVEL.DEBUG, CONFIG_CATEGORY.CONFIGURATION, "Read {} keys under {} in bulk"),
+  REMOTE_PROPERTY_MANAGER_BULK_LOAD_FAILED(LEVEL.WARN, CONFIG_CATEGORY.CONFIGURATION, "Bulk read of {} failed, reading each key individually"),
 
   REMOTE_PROPERTY_MANAGER_INVALID_JSON(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Value returned is not valid json for key {}"),
   REMOTE_PROPERTY_MANAGER_SAVE_ALL(LEVEL.ERROR, CONFIG_CATEGORY.CONFIGURATION, "Saving all entries for {}"),
@@ -0,0 +1,130 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of byte arrays used while reading and writing persistent state, so that restoring a
+ * large number of records does not allocate a new array for every string or byte array.
+ * <p>
+ * Arrays are handed out in power of two sizes from {@value #MIN_BUFFER_SIZE} bytes up to the
+ * configured maximum, requests above the maximum are simply allocated and never retained. The
+ * number of arrays kept for each size and the total bytes kept across all sizes are both capped,
+ * once either limit is reached released arrays are left for the garbage collector. The pool is not
+ * thread safe, {@link PersistentObject} keeps one per thread and a reader can supply its own.
+ */
+public class BufferPool {
+
+  public static final int MIN_BUFFER_SIZE = 64;
+  private static final int MIN_SHIFT = 6;
+
+  private final int maxBufferSize;
+  private final int maxPerSize;
+  private final long maxRetainedBytes;
+  private final ArrayDeque<byte[]>[] buckets;
+  private long retainedBytes;
+
+  /**
+   * @param maxBufferSize the largest array that is retained, rounded up to a power of two
+   * @param maxPerSize    the number of arrays retained for each size
+   */
+  public BufferPool(int maxBufferSize, int maxPerSize) {
+    this(maxBufferSize, maxPerSize, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param maxBufferSize    the largest array that is retained, rounded up to a power of two
+   * @param maxPerSize       the number of arrays retained for each size
+   * @param maxRetainedBytes the most bytes held by the pool across all sizes
+   */
+  @SuppressWarnings("unchecked")
+  public BufferPool(int maxBufferSize, int maxPerSize, long maxRetainedBytes) {
+    this.maxBufferSize = roundUp(Math.max(MIN_BUFFER_SIZE, maxBufferSize));
+    this.maxPerSize = maxPerSize;
+    this.maxRetainedBytes = maxRetainedBytes;
+    buckets = new ArrayDeque[bucket(this.maxBufferSize) + 1];
+    for (int x = 0; x < buckets.length; x++) {
+      buckets[x] = new ArrayDeque<>();
+    }
+  }
+
+  /**
+   * Returns an array of at least the requested size, the contents are undefined.
+   *
+   * @param size the minimum size required
+   * @return an array that should be given back with {@link #release(byte[])} once no longer needed
+   */
+  public byte[] acquire(int size) {
+    if (size > maxBufferSize) {
+      return new byte[size];
+    }
+    int index = bucket(size);
+    byte[] buffer = buckets[index].pollFirst();
+    if (buffer == null) {
+      return new byte[MIN_BUFFER_SIZE << index];
+    }
+    retainedBytes -= buffer.length;
+    return buffer;
+  }
+
+  /**
+   * Returns an array to the pool. Arrays that did not come from the pool are accepted as long as
+   * their size is one the pool hands out, anything else is left for the garbage collector.
+   *
+   * @param buffer the array to return
+   */
+  public void release(byte[] buffer) {
+    int len = buffer.length;
+    if (len < MIN_BUFFER_SIZE || len > maxBufferSize || Integer.bitCount(len) != 1) {
+      return;
+    }
+    ArrayDeque<byte[]> bucket = buckets[bucket(len)];
+    if (bucket.size() < maxPerSize && retainedBytes + len <= maxRetainedBytes) {
+      bucket.offerFirst(buffer);
+      retainedBytes += len;
+    }
+  }
+
+  public int getMaxBufferSize() {
+    return maxBufferSize;
+  }
+
+  /**
+   * @return the total number of bytes currently held by the pool
+   */
+  public long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  private static int bucket(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+
+  private static int roundUp(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return MIN_BUFFER_SIZE;
+    }
+    return size > (1 << 30) ? 1 << 30 : Integer.highestOneBit(size - 1) << 1;
+  }
+}
@@ -24,9 +24,48 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Helpers for reading and writing the primitive, string and byte array fields of persistent state.
+ * <p>
+ * Strings and byte arrays are encoded through temporary buffers taken from a {@link BufferPool}.
+ * By default each thread that uses these helpers gets its own pool. The pool lives as long as the
+ * thread and keeps at most 64KB of buffers, in arrays of up to 16KB each. Subclasses that want no
+ * retention, or a pool whose lifetime they control, can override {@link #getBufferPool()}.
+ */
 public class PersistentObject {
 
+  /**
+   * Written at the start of a file by {@link #writeFormatHeader(OutputStream, int)} so readers can tell
+   * which encoding was used. Files written before the header existed have no marker at all and are
+   * reported as {@link #FORMAT_LEGACY}.
+   */
+  protected static final int FORMAT_MAGIC = 0x4D415053; // "MAPS"
+  protected static final int FORMAT_LEGACY = 0;
+  protected static final int FORMAT_FIXED = 1;
+  protected static final int FORMAT_COMPACT = 2;
+
+  private static final int MAX_VAR_INT_SIZE = 5;
+  private static final int MAX_VAR_LONG_SIZE = 10;
+
+  private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // Scratch space for encoding and decoding primitives so they move through the stream in one call
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[MAX_VAR_LONG_SIZE]);
+
+  // Strings and pooled byte arrays go through a per-thread pool, which is capped so that long lived
+  // executor threads only ever pin a small amount of memory
+  private static final int MAX_POOLED_BUFFER = 16 * 1024;
+  private static final int MAX_RETAINED_BYTES = 64 * 1024;
+  private static final ThreadLocal<BufferPool> BUFFER_POOL = ThreadLocal.withInitial(() -> new BufferPool(MAX_POOLED_BUFFER, 4, MAX_RETAINED_BYTES));
 
   /**
    * Writes an integer value to the specified output stream.
@@ -73,7 +112,8 @@ public class PersistentObject {
   }
 
   /**
-   * Writes a string value to the specified output stream.
+   * Writes a string value to the specified output stream as a length prefixed UTF-8 sequence, a null
+   * string is written as a length of -1.
    *
    * @param outputStream the output stream to write the string value to
    * @param text         the string value to be written
@@ -83,25 +123,45 @@ public class PersistentObject {
     if (text == null) {
       writeInt(outputStream, -1);
     } else {
-      byte[] buffer = text.getBytes();
-      writeInt(outputStream, buffer.length);
-      outputStream.write(buffer);
+      int len = utf8Length(text);
+      BufferPool pool = getBufferPool();
+      byte[] scratch = pool.acquire(len + 4);
+      try {
+        INT_HANDLE.set(scratch, 0, len);
+        encodeUtf8(text, scratch, 4);
+        outputStream.write(scratch, 0, len + 4);
+      } finally {
+        pool.release(scratch);
+      }
     }
   }
 
   /**
-   * Reads a string value from the specified input stream.
+   * Reads a UTF-8 string value from the specified input stream.
    *
    * @param inputStream the input stream to read the string value from
-   * @return the string value read from the input stream
+   * @return the string value read from the input stream, or null if a null string was written
    * @throws IOException if an I/O error occurs while reading from the input stream
    */
-  protected String readString(InputStream inputStream) throws IOException {
+  protected @Nullable String readString(InputStream inputStream) throws IOException {
+    return readString(inputStream, getBufferPool());
+  }
+
+  /**
+   * Reads a UTF-8 string value from the specified input stream, decoding it from a buffer taken from
+   * the supplied pool rather than a newly allocated array.
+   *
+   * @param inputStream the input stream to read the string value from
+   * @param pool        the pool to borrow the decode buffer from
+   * @return the string value read from the input stream, or null if a null string was written
+   * @throws IOException if an I/O error occurs while reading from the input stream
+   */
+  protected @Nullable String readString(InputStream inputStream, BufferPool pool) throws IOException {
     int len = readInt(inputStream);
-    if (len >= 0) {
-      return new String(readFullBuffer(inputStream, len));
+    if (len < 0) {
+      return null;
     }
-    return "";
+    return decodeUtf8(inputStream, len, pool);
   }
 
   /**
@@ -145,15 +205,669 @@ public class PersistentObject {
    */
   protected byte[] readFullBuffer(InputStream inputStream, int len) throws IOException {
     byte[] tmp = new byte[len];
+    readFully(inputStream, tmp, 0, len);
+    return tmp;
+  }
+
+  /**
+   * Reads exactly <code>len</code> bytes from the specified input stream into the supplied buffer.
+   *
+   * @param inputStream the input stream to read from
+   * @param buffer      the buffer to read into
+   * @param offset      the position in the buffer to start writing at
+   * @param len         the number of bytes to read
+   * @throws IOException if an I/O error occurs or the stream ends first
+   */
+  protected void readFullBuffer(InputStream inputStream, byte[] buffer, int offset, int len) throws IOException {
+    if (offset < 0 || len < 0 || len > buffer.length - offset) {
+      throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + len + ") out of bounds for length " + buffer.length);
+    }
+    readFully(inputStream, buffer, offset, len);
+  }
+
+  /**
+   * Reads a byte array value from the specified input stream into the supplied buffer. If the value
+   * does not fit it is skipped, so the stream stays positioned at the next value, and an exception is
+   * raised.
+   *
+   * @param inputStream the input stream to read the byte array value from
+   * @param buffer      the buffer to read the value into
+   * @return the number of bytes read into the buffer, or -1 if a null array was written
+   * @throws IOException if an I/O error occurs or the value is larger than the buffer
+   */
+  protected int readByteArray(InputStream inputStream, byte[] buffer) throws IOException {
+    int len = readInt(inputStream);
+    if (len < 0) {
+      return -1;
+    }
+    if (len > buffer.length) {
+      inputStream.skipNBytes(len);
+      throw new IOException("Byte array of " + len + " bytes does not fit the supplied buffer of " + buffer.length);
+    }
+    readFully(inputStream, buffer, 0, len);
+    return len;
+  }
+
+  /**
+   * Reads a byte array value from the specified input stream into an array borrowed from the pool.
+   * The returned buffer wraps the pooled array with its limit set to the length of the value, hand
+   * the array back with <code>pool.release(buffer.array())</code> once finished with it.
+   *
+   * @param inputStream the input stream to read the byte array value from
+   * @param pool        the pool to borrow the array from
+   * @return the value wrapped in a buffer, or null if a null array was written
+   * @throws IOException if an I/O error occurs while reading from the input stream
+   */
+  protected @Nullable ByteBuffer readByteArray(InputStream inputStream, BufferPool pool) throws IOException {
+    int len = readInt(inputStream);
+    if (len < 0) {
+      return null;
+    }
+    byte[] buffer = pool.acquire(len);
+    try {
+      readFully(inputStream, buffer, 0, len);
+    } catch (IOException e) {
+      pool.release(buffer);
+      throw e;
+    }
+    return ByteBuffer.wrap(buffer, 0, len);
+  }
+
+  /**
+   * Returns the pool used for the temporary buffers behind the string helpers. By default this is a
+   * capped pool per thread, a subclass can return its own, for example one per reader.
+   *
+   * @return the buffer pool to use
+   */
+  protected BufferPool getBufferPool() {
+    return BUFFER_POOL.get();
+  }
+
+  private void readFully(InputStream inputStream, byte[] buffer, int offset, int len) throws IOException {
     int read = 0;
     while (read < len) {
-      int t = inputStream.read(tmp, read, len - read);
+      int t = inputStream.read(buffer, offset + read, len - read);
       if (t < 0) throw new IOException("EOF reached");
       read += t;
     }
+  }
+
+  private String decodeUtf8(InputStream inputStream, int len, BufferPool pool) throws IOException {
+    byte[] scratch = pool.acquire(len);
+    try {
+      readFully(inputStream, scratch, 0, len);
+      return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    } finally {
+      pool.release(scratch);
+    }
+  }
+
+  /**
+   * Writes an integer value to the specified buffer, always big-endian regardless of the buffer's
+   * byte order, so the layout matches {@link #writeInt(OutputStream, int)}.
+   *
+   * @param buffer the buffer to write the integer value to
+   * @param val    the integer value to be written
+   */
+  protected void writeInt(ByteBuffer buffer, int val) {
+    buffer.putInt(buffer.order() == ByteOrder.BIG_ENDIAN ? val : Integer.reverseBytes(val));
+  }
+
+  /**
+   * Reads a big-endian integer value from the specified buffer.
+   *
+   * @param buffer the buffer to read the integer value from
+   * @return the integer value read from the buffer
+   */
+  protected int readInt(ByteBuffer buffer) {
+    int val = buffer.getInt();
+    return buffer.order() == ByteOrder.BIG_ENDIAN ? val : Integer.reverseBytes(val);
+  }
+
+  /**
+   * Writes a long value to the specified buffer, always big-endian regardless of the buffer's byte
+   * order, so the layout matches {@link #writeLong(OutputStream, long)}.
+   *
+   * @param buffer the buffer to write the long value to
+   * @param val    the long value to be written
+   */
+  protected void writeLong(ByteBuffer buffer, long val) {
+    buffer.putLong(buffer.order() == ByteOrder.BIG_ENDIAN ? val : Long.reverseBytes(val));
+  }
+
+  /**
+   * Reads a big-endian long value from the specified buffer.
+   *
+   * @param buffer the buffer to read the long value from
+   * @return the long value read from the buffer
+   */
+  protected long readLong(ByteBuffer buffer) {
+    long val = buffer.getLong();
+    return buffer.order() == ByteOrder.BIG_ENDIAN ? val : Long.reverseBytes(val);
+  }
+
+  /**
+   * Writes a string value to the specified buffer using the same layout as
+   * {@link #writeString(OutputStream, String)}. Heap buffers are encoded into directly.
+   *
+   * @param buffer the buffer to write the string value to
+   * @param text   the string value to be written
+   * @throws BufferOverflowException if the encoded string does not fit, nothing is written in that case
+   */
+  protected void writeString(ByteBuffer buffer, String text) {
+    if (text == null) {
+      writeInt(buffer, -1);
+      return;
+    }
+    int len = utf8Length(text);
+    if (buffer.remaining() < len + 4) {
+      throw new BufferOverflowException();
+    }
+    writeInt(buffer, len);
+    if (buffer.hasArray()) {
+      encodeUtf8(text, buffer.array(), buffer.arrayOffset() + buffer.position());
+      buffer.position(buffer.position() + len);
+    } else {
+      BufferPool pool = getBufferPool();
+      byte[] scratch = pool.acquire(len);
+      encodeUtf8(text, scratch, 0);
+      buffer.put(scratch, 0, len);
+      pool.release(scratch);
+    }
+  }
+
+  /**
+   * Reads a UTF-8 string value from the specified buffer. Heap buffers are decoded in place, other
+   * buffers, such as direct or memory mapped ones, are decoded through a reusable scratch buffer.
+   *
+   * @param buffer the buffer to read the string value from
+   * @return the string value read from the buffer, or null if a null string was written
+   * @throws BufferUnderflowException if the buffer holds fewer bytes than the encoded length
+   */
+  protected @Nullable String readString(ByteBuffer buffer) {
+    int len = readLength(buffer);
+    if (len < 0) {
+      return null;
+    }
+    return decodeUtf8(buffer, len);
+  }
+
+  /**
+   * Writes a byte array to the specified buffer using the same layout as
+   * {@link #writeByteArray(OutputStream, byte[])}.
+   *
+   * @param buffer the buffer to write the byte array to
+   * @param data   the byte array to be written
+   */
+  protected void writeByteArray(ByteBuffer buffer, byte[] data) {
+    if (data == null) {
+      writeInt(buffer, -1);
+    } else {
+      writeInt(buffer, data.length);
+      buffer.put(data);
+    }
+  }
+
+  /**
+   * Reads a byte array value from the specified buffer.
+   *
+   * @param buffer the buffer to read the byte array value from
+   * @return the byte array value read from the buffer, or null if the length is negative
+   * @throws BufferUnderflowException if the buffer holds fewer bytes than the encoded length
+   */
+  protected @Nullable byte[] readByteArray(ByteBuffer buffer) {
+    int len = readLength(buffer);
+    if (len < 0) {
+      return null;
+    }
+    byte[] tmp = new byte[len];
+    buffer.get(tmp);
     return tmp;
   }
 
+  /**
+   * Reads a byte array value from the specified buffer without copying it. The returned buffer is a
+   * read-only view over the encoded bytes, so for a memory mapped file it is backed directly by the
+   * mapped pages and only stays valid for as long as the mapping does.
+   *
+   * @param buffer the buffer to read the byte array value from
+   * @return a view of the byte array value, or null if the length is negative
+   * @throws BufferUnderflowException if the buffer holds fewer bytes than the encoded length
+   */
+  protected @Nullable ByteBuffer readByteArrayView(ByteBuffer buffer) {
+    int len = readLength(buffer);
+    if (len < 0) {
+      return null;
+    }
+    ByteBuffer view = buffer.slice(buffer.position(), len).asReadOnlyBuffer();
+    buffer.position(buffer.position() + len);
+    return view;
+  }
+
+  private String decodeUtf8(ByteBuffer buffer, int len) {
+    String text;
+    if (buffer.hasArray()) {
+      text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len, StandardCharsets.UTF_8);
+      buffer.position(buffer.position() + len);
+    } else {
+      BufferPool pool = getBufferPool();
+      byte[] scratch = pool.acquire(len);
+      buffer.get(scratch, 0, len);
+      text = new String(scratch, 0, len, StandardCharsets.UTF_8);
+      pool.release(scratch);
+    }
+    return text;
+  }
+
+  private int readLength(ByteBuffer buffer) {
+    int len = readInt(buffer);
+    if (len > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return len;
+  }
+
+  /**
+   * Writes the format marker, the magic number followed by the version, to the specified output stream.
+   *
+   * @param outputStream the output stream to write the marker to
+   * @param version      the format version, for example {@link #FORMAT_FIXED} or {@link #FORMAT_COMPACT}
+   * @throws IOException if an I/O error occurs while writing to the output stream
+   */
+  protected void writeFormatHeader(OutputStream outputStream, int version) throws IOException {
+    writeInt(outputStream, FORMAT_MAGIC);
+    writeInt(outputStream, version);
+  }
+
+  /**
+   * Reads the format marker from the specified input stream. If the stream does not start with the
+   * marker it is reset to where it was, so a file written before the marker existed can be read from
+   * the beginning with the fixed width helpers.
+   *
+   * @param inputStream the input stream to read the marker from, it must support mark and reset
+   * @return the format version, or {@link #FORMAT_LEGACY} if there is no marker
+   * @throws IOException if an I/O error occurs or the stream does not support mark and reset
+   */
+  protected int readFormatHeader(InputStream inputStream) throws IOException {
+    if (!inputStream.markSupported()) {
+      throw new IOException("Stream must support mark and reset to detect the format");
+    }
+    inputStream.mark(8);
+    try {
+      if (readInt(inputStream) == FORMAT_MAGIC) {
+        return readInt(inputStream);
+      }
+    } catch (IOException e) {
+      // Shorter than a marker, so it can only be a legacy file
+    }
+    inputStream.reset();
+    return FORMAT_LEGACY;
+  }
+
+  /**
+   * Writes the format marker, the magic number followed by the version, to the specified buffer.
+   *
+   * @param buffer  the buffer to write the marker to
+   * @param version the format version
+   */
+  protected void writeFormatHeader(ByteBuffer buffer, int version) {
+    writeInt(buffer, FORMAT_MAGIC);
+    writeInt(buffer, version);
+  }
+
+  /**
+   * Reads the format marker from the specified buffer, leaving the position untouched if there is none.
+   *
+   * @param buffer the buffer to read the marker from
+   * @return the format version, or {@link #FORMAT_LEGACY} if there is no marker
+   */
+  protected int readFormatHeader(ByteBuffer buffer) {
+    if (buffer.remaining() >= 8 && readInt(buffer.duplicate().order(buffer.order())) == FORMAT_MAGIC) {
+      readInt(buffer);
+      return readInt(buffer);
+    }
+    return FORMAT_LEGACY;
+  }
+
+  /**
+   * Writes an integer value as a zigzag encoded variable length integer, values between -64 and 63
+   * take a single byte and no value takes more than 5.
+   *
+   * @param outputStream the output stream to write the integer value to
+   * @param val          the integer value to be written
+   * @throws IOException if an I/O error occurs while writing to the output stream
+   */
+  protected void writeVarInt(OutputStream outputStream, int val) throws IOException {
+    writeVarLong(outputStream, val);
+  }
+
+  /**
+   * Reads a zigzag encoded variable length integer from the specified input stream.
+   *
+   * @param inputStream the input stream to read the integer value from
+   * @return the integer value read from the input stream
+   * @throws IOException if an I/O error occurs, the stream ends or the value is malformed
+   */
+  protected int readVarInt(InputStream inputStream) throws IOException {
+    return (int) readVarBits(inputStream, MAX_VAR_INT_SIZE);
+  }
+
+  /**
+   * Writes a long value as a zigzag encoded variable length integer, no value takes more than 10 bytes.
+   *
+   * @param outputStream the output stream to write the long value to
+   * @param val          the long value to be written
+   * @throws IOException if an I/O error occurs while writing to the output stream
+   */
+  protected void writeVarLong(OutputStream outputStream, long val) throws IOException {
+    byte[] scratch = SCRATCH.get();
+    int len = encodeVarLong(val, scratch, 0);
+    outputStream.write(scratch, 0, len);
+  }
+
+  /**
+   * Reads a zigzag encoded variable length long from the specified input stream.
+   *
+   * @param inputStream the input stream to read the long value from
+   * @return the long value read from the input stream
+   * @throws IOException if an I/O error occurs, the stream ends or the value is malformed
+   */
+  protected long readVarLong(InputStream inputStream) throws IOException {
+    return readVarBits(inputStream, MAX_VAR_LONG_SIZE);
+  }
+
+  /**
+   * Writes a string value as a variable length prefixed UTF-8 sequence, a null string is written as a
+   * length of -1.
+   *
+   * @param outputStream the output stream to write the string value to
+   * @param text         the string value to be written
+   * @throws IOException if an I/O error occurs while writing to the output stream
+   */
+  protected void writeVarString(OutputStream outputStream, String text) throws IOException {
+    if (text == null) {
+      writeVarInt(outputStream, -1);
+    } else {
+      int len = utf8Length(text);
+      BufferPool pool = getBufferPool();
+      byte[] scratch = pool.acquire(len + MAX_VAR_INT_SIZE);
+      try {
+        int offset = encodeVarLong(len, scratch, 0);
+        encodeUtf8(text, scratch, offset);
+        outputStream.write(scratch, 0, offset + len);
+      } finally {
+        pool.release(scratch);
+      }
+    }
+  }
+
+  /**
+   * Reads a variable length prefixed UTF-8 string value from the specified input stream.
+   *
+   * @param inputStream the input stream to read the string value from
+   * @return the string value read from the input stream, or null if a null string was written
+   * @throws IOException if an I/O error occurs while reading from the input stream
+   */
+  protected @Nullable String readVarString(InputStream inputStream) throws IOException {
+    int len = readVarInt(inputStream);
+    if (len < 0) {
+      return null;
+    }
+    return decodeUtf8(inputStream, len, getBufferPool());
+  }
+
+  /**
+   * Writes a byte array with a variable length prefix to the specified output stream.
+   *
+   * @param outputStream the output stream to write the byte array to
+   * @param buffer       the byte array to be written
+   * @throws IOException if an I/O error occurs while writing to the output stream
+   */
+  protected void writeVarByteArray(OutputStream outputStream, byte[] buffer) throws IOException {
+    if (buffer == null) {
+      writeVarInt(outputStream, -1);
+    } else {
+      writeVarInt(outputStream, buffer.length);
+      outputStream.write(buffer);
+    }
+  }
+
+  /**
+   * Reads a byte array with a variable length prefix from the specified input stream.
+   *
+   * @param inputStream the input stream to read the byte array value from
+   * @return the byte array value read from the input stream, or null if the length is negative
+   * @throws IOException if an I/O error occurs while reading from the input stream
+   */
+  protected @Nullable byte[] readVarByteArray(InputStream inputStream) throws IOException {
+    int len = readVarInt(inputStream);
+    if (len >= 0) {
+      return readFullBuffer(inputStream, len);
+    }
+    return null;
+  }
+
+  /**
+   * Writes an integer value as a zigzag encoded variable length integer to the specified buffer.
+   *
+   * @param buffer the buffer to write the integer value to
+   * @param val    the integer value to be written
+   */
+  protected void writeVarInt(ByteBuffer buffer, int val) {
+    writeVarLong(buffer, val);
+  }
+
+  /**
+   * Reads a zigzag encoded variable length integer from the specified buffer.
+   *
+   * @param buffer the buffer to read the integer value from
+   * @return the integer value read from the buffer
+   * @throws IllegalStateException if the value is malformed
+   */
+  protected int readVarInt(ByteBuffer buffer) {
+    return (int) readVarBits(buffer, MAX_VAR_INT_SIZE);
+  }
+
+  /**
+   * Writes a long value as a zigzag encoded variable length integer to the specified buffer.
+   *
+   * @param buffer the buffer to write the long value to
+   * @param val    the long value to be written
+   */
+  protected void writeVarLong(ByteBuffer buffer, long val) {
+    byte[] scratch = SCRATCH.get();
+    int len = encodeVarLong(val, scratch, 0);
+    buffer.put(scratch, 0, len);
+  }
+
+  /**
+   * Reads a zigzag encoded variable length long from the specified buffer.
+   *
+   * @param buffer the buffer to read the long value from
+   * @return the long value read from the buffer
+   * @throws IllegalStateException if the value is malformed
+   */
+  protected long readVarLong(ByteBuffer buffer) {
+    return readVarBits(buffer, MAX_VAR_LONG_SIZE);
+  }
+
+  /**
+   * Writes a string value as a variable length prefixed UTF-8 sequence to the specified buffer.
+   *
+   * @param buffer the buffer to write the string value to
+   * @param text   the string value to be written
+   * @throws BufferOverflowException if the encoded string does not fit, nothing is written in that case
+   */
+  protected void writeVarString(ByteBuffer buffer, String text) {
+    if (text == null) {
+      writeVarInt(buffer, -1);
+      return;
+    }
+    int len = utf8Length(text);
+    BufferPool pool = getBufferPool();
+    byte[] scratch = pool.acquire(len + MAX_VAR_INT_SIZE);
+    try {
+      int offset = encodeVarLong(len, scratch, 0);
+      encodeUtf8(text, scratch, offset);
+      if (buffer.remaining() < offset + len) {
+        throw new BufferOverflowException();
+      }
+      buffer.put(scratch, 0, offset + len);
+    } finally {
+      pool.release(scratch);
+    }
+  }
+
+  /**
+   * Reads a variable length prefixed UTF-8 string value from the specified buffer.
+   *
+   * @param buffer the buffer to read the string value from
+   * @return the string value read from the buffer, or null if a null string was written
+   * @throws BufferUnderflowException if the buffer holds fewer bytes than the encoded length
+   */
+  protected @Nullable String readVarString(ByteBuffer buffer) {
+    int len = readVarLength(buffer);
+    if (len < 0) {
+      return null;
+    }
+    return decodeUtf8(buffer, len);
+  }
+
+  /**
+   * Writes a byte array with a variable length prefix to the specified buffer.
+   *
+   * @param buffer the buffer to write the byte array to
+   * @param data   the byte array to be written
+   */
+  protected void writeVarByteArray(ByteBuffer buffer, byte[] data) {
+    if (data == null) {
+      writeVarInt(buffer, -1);
+    } else {
+      writeVarInt(buffer, data.length);
+      buffer.put(data);
+    }
+  }
+
+  /**
+   * Reads a byte array with a variable length prefix from the specified buffer.
+   *
+   * @param buffer the buffer to read the byte array value from
+   * @return the byte array value read from the buffer, or null if the length is negative
+   * @throws BufferUnderflowException if the buffer holds fewer bytes than the encoded length
+   */
+  protected @Nullable byte[] readVarByteArray(ByteBuffer buffer) {
+    int len = readVarLength(buffer);
+    if (len < 0) {
+      return null;
+    }
+    byte[] tmp = new byte[len];
+    buffer.get(tmp);
+    return tmp;
+  }
+
+  private int readVarLength(ByteBuffer buffer) {
+    int len = readVarInt(buffer);
+    if (len > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return len;
+  }
+
+  private static int encodeVarLong(long val, byte[] dst, int offset) {
+    long bits = (val << 1) ^ (val >> 63);
+    int pos = offset;
+    while ((bits & ~0x7FL) != 0) {
+      dst[pos++] = (byte) ((bits & 0x7F) | 0x80);
+      bits >>>= 7;
+    }
+    dst[pos++] = (byte) bits;
+    return pos - offset;
+  }
+
+  private static long readVarBits(InputStream inputStream, int maxSize) throws IOException {
+    long bits = 0;
+    for (int x = 0; x < maxSize; x++) {
+      int b = inputStream.read();
+      if (b < 0) throw new IOException("EOF reached");
+      bits |= (long) (b & 0x7F) << (7 * x);
+      if ((b & 0x80) == 0) {
+        return (bits >>> 1) ^ -(bits & 1);
+      }
+    }
+    throw new IOException("Malformed variable length integer");
+  }
+
+  private static long readVarBits(ByteBuffer buffer, int maxSize) {
+    long bits = 0;
+    for (int x = 0; x < maxSize; x++) {
+      int b = buffer.get();
+      bits |= (long) (b & 0x7F) << (7 * x);
+      if ((b & 0x80) == 0) {
+        return (bits >>> 1) ^ -(bits & 1);
+      }
+    }
+    throw new IllegalStateException("Malformed variable length integer");
+  }
+
+  /**
+   * Computes the number of bytes the string occupies in UTF-8. Unpaired surrogates count as a single
+   * byte since they are encoded as '?', the same as {@link String#getBytes(java.nio.charset.Charset)}.
+   */
+  private static int utf8Length(String text) {
+    int len = text.length();
+    int bytes = len;
+    for (int x = 0; x < len; x++) {
+      char c = text.charAt(x);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes += 1;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 2;
+        } else if (Character.isHighSurrogate(c) && x + 1 < len && Character.isLowSurrogate(text.charAt(x + 1))) {
+          bytes += 2; // 4 bytes for the 2 chars of the pair
+          x++;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static void encodeUtf8(String text, byte[] dst, int offset) {
+    int len = text.length();
+    int pos = offset;
+    int x = 0;
+    // Fast path, most strings are ASCII
+    while (x < len) {
+      char c = text.charAt(x);
+      if (c >= 0x80) {
+        break;
+      }
+      dst[pos++] = (byte) c;
+      x++;
+    }
+    for (; x < len; x++) {
+      char c = text.charAt(x);
+      if (c < 0x80) {
+        dst[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        dst[pos++] = (byte) (0xc0 | (c >> 6));
+        dst[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (!Character.isSurrogate(c)) {
+        dst[pos++] = (byte) (0xe0 | (c >> 12));
+        dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        dst[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && x + 1 < len && Character.isLowSurrogate(text.charAt(x + 1))) {
+        int cp = Character.toCodePoint(c, text.charAt(++x));
+        dst[pos++] = (byte) (0xf0 | (cp >> 18));
+        dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        dst[pos++] = (byte) (0x80 | (cp & 0x3f));
+      } else {
+        dst[pos++] = (byte) '?';
+      }
+    }
+  }
+
   /**
    * Writes a binary value to the specified output stream.
    *
@@ -163,9 +877,17 @@ public class PersistentObject {
    * @throws IOException if an I/O error occurs while writing to the output stream
    */
   private void writeBinary(OutputStream outputStream, long val, int size) throws IOException {
-    for (int x = 0; x < size; x++) {
-      outputStream.write((byte) ((val >> (8 * (size - (x + 1)))) & 0xff));
+    byte[] scratch = SCRATCH.get();
+    if (size == 8) {
+      LONG_HANDLE.set(scratch, 0, val);
+    } else if (size == 4) {
+      INT_HANDLE.set(scratch, 0, (int) val);
+    } else {
+      for (int x = 0; x < size; x++) {
+        scratch[x] = (byte) ((val >> (8 * (size - (x + 1)))) & 0xff);
+      }
     }
+    outputStream.write(scratch, 0, size);
   }
 
   /**
@@ -174,12 +896,19 @@ public class PersistentObject {
    * @param inputStream the input stream to read the binary value from
    * @param size        the size of the binary value in bytes
    * @return the binary value read from the input stream
-   * @throws IOException if an I/O error occurs while reading from the input stream
+   * @throws IOException if an I/O error occurs while reading from the input stream, or the stream ends first
    */
   private long readBinary(InputStream inputStream, int size) throws IOException {
+    byte[] scratch = SCRATCH.get();
+    readFully(inputStream, scratch, 0, size);
+    if (size == 8) {
+      return (long) LONG_HANDLE.get(scratch, 0);
+    } else if (size == 4) {
+      return (int) INT_HANDLE.get(scratch, 0);
+    }
     long tmp = 0;
     for (int x = 0; x < size; x++) {
-      tmp = (tmp << 8) + (inputStream.read() & 0xff);
+      tmp = (tmp << 8) + (scratch[x] & 0xff);
     }
     return tmp;
   }
@@ -0,0 +1,43 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+/**
+ * Layout shared by {@link RecordContainerWriter} and {@link RecordContainerReader}.
+ * <p>
+ * A container starts with an 8 byte header, the magic number followed by the format version, and is
+ * then a sequence of frames. Each frame is a sync marker, the payload length, a CRC32C over the
+ * length and payload, and then the payload itself, all integers big-endian. The sync marker lets a
+ * reader find the next frame again after a damaged one.
+ */
+final class RecordContainer {
+
+  static final int MAGIC = 0x4D415052; // "MAPR"
+  static final int VERSION = 1;
+  static final int SYNC_MARKER = 0x5EC0DE5A;
+
+  static final int HEADER_SIZE = 8;
+  static final int FRAME_HEADER_SIZE = 12;
+
+  static final int DEFAULT_MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+  private RecordContainer() {
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static io.mapsmessaging.persistance.RecordContainer.*;
+
+/**
+ * Streams the records out of a container written by {@link RecordContainerWriter}.
+ * <p>
+ * Frames that fail their checksum, or that are cut short, are skipped, the reader then scans forward
+ * for the next sync marker and carries on from there, so a damaged region only costs the records in
+ * it rather than the rest of the file.
+ */
+public class RecordContainerReader extends PersistentObject implements Closeable {
+
+  private static final int MIN_FRAME_BUFFER = 256;
+  private static final byte[] SYNC_BYTES = ByteBuffer.allocate(4).putInt(SYNC_MARKER).array();
+
+  private final InputStream inputStream;
+  private final int maxRecordSize;
+  private final CRC32C crc;
+
+  // Bytes handed back after a damaged frame, these are read again before the stream
+  private byte[] replay;
+  private int replayPos;
+  private int replayLen;
+
+  private byte[] frame;
+  private long offset;
+
+  @Getter
+  private final int version;
+  @Getter
+  private long corruptFrames;
+  @Getter
+  private long skippedBytes;
+  @Getter
+  private long validEnd;
+
+  public RecordContainerReader(InputStream inputStream) throws IOException {
+    this(inputStream, DEFAULT_MAX_RECORD_SIZE);
+  }
+
+  public RecordContainerReader(InputStream inputStream, int maxRecordSize) throws IOException {
+    this.inputStream = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+    this.maxRecordSize = maxRecordSize;
+    crc = new CRC32C();
+    replay = new byte[0];
+    frame = new byte[MIN_FRAME_BUFFER];
+    if (readInt(this.inputStream) != MAGIC) {
+      throw new IOException("Not a record container");
+    }
+    version = readInt(this.inputStream);
+    if (version > VERSION) {
+      throw new IOException("Unsupported record container version " + version);
+    }
+    offset = HEADER_SIZE;
+    validEnd = HEADER_SIZE;
+  }
+
+  /**
+   * Reads the next intact record.
+   *
+   * @return the payload of the next record, or null once the end of the container is reached
+   * @throws IOException if an I/O error occurs while reading from the underlying stream
+   */
+  public @Nullable byte[] readRecord() throws IOException {
+    while (true) {
+      int read = fill(0, FRAME_HEADER_SIZE);
+      if (read < FRAME_HEADER_SIZE) {
+        return endOfStream(read);
+      }
+      ByteBuffer header = ByteBuffer.wrap(frame, 0, FRAME_HEADER_SIZE);
+      if (readInt(header) != SYNC_MARKER) {
+        resync(FRAME_HEADER_SIZE);
+        continue;
+      }
+      int length = readInt(header);
+      int checksum = readInt(header);
+      if (length < 0 || length > maxRecordSize) {
+        corruptFrames++;
+        resync(FRAME_HEADER_SIZE);
+        continue;
+      }
+      read = fill(FRAME_HEADER_SIZE, length);
+      if (read < length) {
+        corruptFrames++;
+        resync(FRAME_HEADER_SIZE + read);
+        continue;
+      }
+      crc.reset();
+      crc.update(frame, 4, 4);
+      crc.update(frame, FRAME_HEADER_SIZE, length);
+      if ((int) crc.getValue() != checksum) {
+        corruptFrames++;
+        resync(FRAME_HEADER_SIZE + length);
+        continue;
+      }
+      validEnd = offset;
+      return Arrays.copyOfRange(frame, FRAME_HEADER_SIZE, FRAME_HEADER_SIZE + length);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  private byte[] endOfStream(int read) {
+    if (read > 0) {
+      skippedBytes += read;
+    }
+    return null;
+  }
+
+  /**
+   * Moves on to the next possible sync marker after the start of the current frame, since a frame
+   * with a damaged length may well have swallowed the start of the next good one. Everything from
+   * that point is read again before the stream. The search runs over the bytes already held, and
+   * they are handed back by moving the replay cursor, or by swapping the frame buffer in as the
+   * replay buffer, so recovering from even a large damaged frame costs no more than reading it once.
+   */
+  private void resync(int consumed) {
+    if (replayPos < replayLen) {
+      // Replay data is still pending, so the whole frame was copied out of it, step back into it
+      int start = replayPos - consumed;
+      int pos = findSyncMarker(replay, start + 1, replayLen);
+      skippedBytes += pos - start;
+      offset -= replayPos - pos;
+      replayPos = pos;
+    } else {
+      int pos = findSyncMarker(frame, 1, consumed);
+      skippedBytes += pos;
+      offset -= consumed - pos;
+      byte[] spare = replay;
+      replay = frame;
+      replayPos = pos;
+      replayLen = consumed;
+      frame = spare.length >= MIN_FRAME_BUFFER ? spare : new byte[MIN_FRAME_BUFFER];
+    }
+  }
+
+  // Returns the first position that holds the sync marker, or the start of one cut off by the end
+  private static int findSyncMarker(byte[] buffer, int from, int to) {
+    for (int x = from; x < to; x++) {
+      if (buffer[x] == SYNC_BYTES[0] && matchesSyncMarker(buffer, x, to)) {
+        return x;
+      }
+    }
+    return to;
+  }
+
+  private static boolean matchesSyncMarker(byte[] buffer, int pos, int to) {
+    int len = Math.min(SYNC_BYTES.length, to - pos);
+    for (int x = 1; x < len; x++) {
+      if (buffer[pos + x] != SYNC_BYTES[x]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int fill(int pos, int len) throws IOException {
+    if (frame.length < pos + len) {
+      frame = Arrays.copyOf(frame, Math.max(pos + len, frame.length * 2));
+    }
+    int read = 0;
+    int fromReplay = Math.min(len, replayLen - replayPos);
+    if (fromReplay > 0) {
+      System.arraycopy(replay, replayPos, frame, pos, fromReplay);
+      replayPos += fromReplay;
+      read = fromReplay;
+    }
+    while (read < len) {
+      int t = inputStream.read(frame, pos + read, len - read);
+      if (t < 0) {
+        break;
+      }
+      read += t;
+    }
+    offset += read;
+    return read;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import static io.mapsmessaging.persistance.RecordContainer.*;
+
+/**
+ * Appends checksummed records to a container file, see {@link RecordContainer} for the layout.
+ * <p>
+ * Opening an existing container scans it once and truncates anything after the last intact record,
+ * so a write that was torn by a crash or shutdown is dropped and new records follow straight on from
+ * the good data. Records are only ever appended, a checkpoint costs the size of the new records
+ * rather than a rewrite of the whole file.
+ * <p>
+ * A record longer than the maximum record size is rejected rather than written, a reader would treat
+ * its frame as damaged and reopening the container would truncate it and everything after it. The
+ * same maximum must be given to any {@link RecordContainerReader} that reads the container.
+ */
+public class RecordContainerWriter extends PersistentObject implements Closeable {
+
+  private final FileChannel channel;
+  private final CRC32C crc;
+  private final int maxRecordSize;
+  private ByteBuffer frame;
+
+  public RecordContainerWriter(File file) throws IOException {
+    this(file, DEFAULT_MAX_RECORD_SIZE);
+  }
+
+  public RecordContainerWriter(File file, int maxRecordSize) throws IOException {
+    this.maxRecordSize = maxRecordSize;
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    crc = new CRC32C();
+    frame = ByteBuffer.allocate(1024);
+    try {
+      if (channel.size() < HEADER_SIZE) {
+        // Empty, or the header itself was torn, so there is nothing to keep
+        channel.truncate(0);
+        frame.clear();
+        writeInt(frame, MAGIC);
+        writeInt(frame, VERSION);
+        frame.flip();
+        writeFully(frame);
+      } else {
+        long end = scanForEnd();
+        if (channel.size() > end) {
+          channel.truncate(end);
+        }
+        channel.position(end);
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Appends a single record to the container.
+   *
+   * @param payload the encoded record
+   * @throws IOException if the record is longer than the maximum record size or an I/O error occurs while writing to the file
+   */
+  public void append(byte[] payload) throws IOException {
+    append(payload, 0, payload.length);
+  }
+
+  /**
+   * Appends a single record to the container.
+   *
+   * @param payload the buffer holding the encoded record
+   * @param offset  the start of the record within the buffer
+   * @param length  the length of the record
+   * @throws IOException if the record is longer than the maximum record size or an I/O error occurs while writing to the file
+   */
+  public synchronized void append(byte[] payload, int offset, int length) throws IOException {
+    if (length > maxRecordSize) {
+      throw new IOException("Record of " + length + " bytes exceeds the maximum record size of " + maxRecordSize);
+    }
+    int size = FRAME_HEADER_SIZE + length;
+    if (frame.capacity() < size) {
+      frame = ByteBuffer.allocate(Math.max(size, frame.capacity() * 2));
+    }
+    frame.clear();
+    writeInt(frame, SYNC_MARKER);
+    writeInt(frame, length);
+    crc.reset();
+    crc.update(frame.array(), 4, 4);
+    crc.update(payload, offset, length);
+    writeInt(frame, (int) crc.getValue());
+    frame.put(payload, offset, length);
+    frame.flip();
+    writeFully(frame);
+  }
+
+  /**
+   * Forces the records appended so far to the storage device.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  public synchronized void sync() throws IOException {
+    channel.force(false);
+  }
+
+  public synchronized long size() throws IOException {
+    return channel.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private long scanForEnd() throws IOException {
+    channel.position(0);
+    // The reader is deliberately not closed, that would close the channel needed for appending
+    @SuppressWarnings("java:S2095")
+    RecordContainerReader reader = new RecordContainerReader(new BufferedInputStream(Channels.newInputStream(channel)), maxRecordSize);
+    while (reader.readRecord() != null) {
+      // Only the end of the last intact record is of interest
+    }
+    return reader.getValidEnd();
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
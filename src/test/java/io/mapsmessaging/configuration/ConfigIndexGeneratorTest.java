@@ -0,0 +1,131 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigIndexGeneratorTest {
+
+  private Path directory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("configIndex");
+    write("resources/a.yaml");
+    write("resources/sub/b.yaml");
+    write("resources/c.txt");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    ResourceList.clearCache();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void generateWritesSortedIndex() throws IOException {
+    File root = directory.resolve("resources").toFile();
+    List<String> resources = ConfigIndexGenerator.generate(root, Pattern.compile(ConfigIndexGenerator.DEFAULT_PATTERN));
+    assertEquals(List.of("a.yaml", "sub/b.yaml"), resources);
+
+    File index = new File(root, ResourceList.CONFIG_INDEX);
+    assertTrue(index.isFile());
+    try (InputStream in = Files.newInputStream(index.toPath())) {
+      assertEquals(resources, ResourceIndex.parseConfigIndex(in));
+    }
+
+    // Regenerating must not list the index itself
+    assertEquals(List.of("a.yaml", "c.txt", "sub/b.yaml"), ConfigIndexGenerator.generate(root, Pattern.compile(".*")));
+  }
+
+  @Test
+  void missingDirectory() {
+    File root = directory.resolve("missing").toFile();
+    assertThrows(IOException.class, () -> ConfigIndexGenerator.scan(root, Pattern.compile(".*")));
+  }
+
+  @Test
+  void configResourcesUseIndexes() throws IOException {
+    File root = directory.resolve("resources").toFile();
+    ConfigIndexGenerator.generate(root, Pattern.compile(ConfigIndexGenerator.DEFAULT_PATTERN));
+    write("resources/unlisted.yaml");
+
+    File indexedJar = directory.resolve("indexed.jar").toFile();
+    createJar(indexedJar, "META-INF/maps-config.index", "x.yaml\n# comment\n\n/y/z.yaml\n", "x.yaml", "", "y/z.yaml", "", "other.yaml", "");
+    File plainJar = directory.resolve("plain.jar").toFile();
+    createJar(plainJar, "p.yaml", "", "q.class", "");
+
+    String classPath = System.getProperty("java.class.path");
+    try {
+      System.setProperty("java.class.path", String.join(File.pathSeparator, root.getPath(), indexedJar.getPath(), plainJar.getPath()));
+      List<String> found = new ArrayList<>(ResourceList.getConfigResources(Pattern.compile(".*yaml")));
+      assertEquals(List.of(
+          new File(root, "a.yaml").getCanonicalPath(),
+          new File(root, "sub/b.yaml").getCanonicalPath(),
+          "x.yaml",
+          "y/z.yaml",
+          "p.yaml"), found);
+
+      // The full scan still sees everything
+      assertTrue(ResourceList.getResources(Pattern.compile(".*yaml")).contains("other.yaml"));
+      assertTrue(ResourceList.getResources(Pattern.compile(".*yaml")).contains(new File(root, "unlisted.yaml").getCanonicalPath()));
+    } finally {
+      System.setProperty("java.class.path", classPath);
+    }
+  }
+
+  private void write(String name) throws IOException {
+    Path path = directory.resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, "key: value\n");
+  }
+
+  private void createJar(File jar, String... entries) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (int x = 0; x < entries.length; x += 2) {
+        zip.putNextEntry(new ZipEntry(entries[x]));
+        zip.write(entries[x + 1].getBytes());
+        zip.closeEntry();
+      }
+    }
+  }
+}
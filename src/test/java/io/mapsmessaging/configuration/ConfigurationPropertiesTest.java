@@ -19,6 +19,7 @@
 
 package io.mapsmessaging.configuration;
 
+import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -249,4 +250,233 @@ class ConfigurationPropertiesTest {
     assertEquals(global, properties.getGlobal());
     assertEquals(10, properties.getLongProperty("globalLong", 0));
   }
-}
\ No newline at end of file
+
+  @Test
+  void freeze() {
+    ConfigurationProperties global = new ConfigurationProperties();
+    global.put("globalLong", "10K");
+    ConfigurationProperties properties = new ConfigurationProperties();
+    properties.setGlobal(global);
+    properties.put("long", "daily");
+    properties.put("double", "12.5");
+    properties.put("boolean", "enable");
+    properties.put("quoted", "“value”");
+    properties.put("error", "10errorf");
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("nestedInt", 5);
+    properties.put("nested", nested);
+
+    FrozenConfigurationProperties frozen = properties.freeze();
+    assertEquals(24*60*60*1000, frozen.getLongProperty("long", 0));
+    assertEquals(10L*1024L, frozen.getLongProperty("globalLong", 0));
+    assertEquals(12.5, frozen.getDoubleProperty("double", 0));
+    assertEquals(13, frozen.getIntProperty("double", 0));
+    assertTrue(frozen.getBooleanProperty("boolean", false));
+    assertEquals("value", frozen.getProperty("quoted"));
+    assertEquals(123, frozen.getLongProperty("error", 123));
+    assertEquals(123, frozen.getLongProperty("empty", 123));
+    assertTrue(frozen.getBooleanProperty("empty", true));
+    assertNull(frozen.getProperty("empty"));
+    assertNotNull(frozen.getConfiguration("nested"));
+    assertEquals(5, frozen.getConfiguration("nested").getIntProperty("nestedInt", 0));
+
+    // Changes after the freeze are not visible in the snapshot
+    properties.put("long", "hourly");
+    assertEquals(24*60*60*1000, frozen.getLongProperty("long", 0));
+    assertEquals(60*60*1000, properties.freeze().getLongProperty("long", 0));
+  }
+
+  @Test
+  void freezeDoesNotCountLookups() {
+    ConfigurationProperties properties = new ConfigurationProperties();
+    properties.put("name", "“value”");
+    properties.put("count", "12");
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("nestedInt", 5);
+    properties.put("nested", nested);
+
+    LookupStatistics statistics = LookupStatistics.getInstance();
+    boolean enabled = statistics.isEnabled();
+    statistics.setEnabled(true);
+    statistics.reset();
+    try {
+      FrozenConfigurationProperties frozen = properties.freeze();
+      assertTrue(statistics.getCounters().isEmpty());
+      assertEquals("value", frozen.getProperty("name"));
+      assertEquals(12, frozen.getIntProperty("count", 0));
+      assertEquals(frozen.getConfiguration("nested").toString(), frozen.getProperty("nested"));
+      assertEquals(0, frozen.getLongProperty("nested", 0));
+    } finally {
+      statistics.reset();
+      statistics.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  void typedValuesFollowUpdates() {
+    ConfigurationProperties global = new ConfigurationProperties();
+    global.put("timeout", "1K");
+    ConfigurationProperties properties = new ConfigurationProperties();
+    properties.setGlobal(global);
+
+    assertEquals(1024, properties.getLongProperty("timeout", 0));
+    assertEquals(1024, properties.getLongProperty("timeout", 0));
+
+    global.put("timeout", "2K");
+    assertEquals(2048, properties.getLongProperty("timeout", 0));
+
+    properties.put("timeout", "hourly");
+    assertEquals(60*60*1000, properties.getLongProperty("timeout", 0));
+
+    properties.put("timeout", "10errorf");
+    assertEquals(123, properties.getLongProperty("timeout", 123));
+    assertFalse(properties.getBooleanProperty("timeout", true));
+
+    properties.clear();
+    assertEquals(2048, properties.getIntProperty("timeout", 0));
+  }
+
+  @Test
+  void lookupStatistics() {
+    LookupStatistics statistics = LookupStatistics.getInstance();
+    statistics.reset();
+    statistics.setEnabled(true);
+    try {
+      ConfigurationProperties properties = new ConfigurationProperties();
+      properties.put("statKey", "10");
+      properties.getLongProperty("statKey", 0);
+      properties.getIntProperty("statKey", 0);
+      properties.getProperty("statKey");
+      properties.getBooleanProperty("statMissing", false);
+      assertEquals(3, statistics.getHits("statKey"));
+      assertEquals(0, statistics.getMisses("statKey"));
+      assertEquals(1, statistics.getMisses("statMissing"));
+    } finally {
+      statistics.setEnabled(false);
+      statistics.reset();
+    }
+  }
+
+  @Test
+  void getByPath() {
+    Map<String, Object> endPoint = new LinkedHashMap<>();
+    endPoint.put("port", 1883);
+    List<Map<String, Object>> interfaces = new ArrayList<>();
+    for (int x = 0; x < 3; x++) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("name", "interface" + x);
+      entry.put("endPoint", endPoint);
+      interfaces.add(entry);
+    }
+    Map<String, Object> mqtt = new LinkedHashMap<>();
+    mqtt.put("maxInFlight", 10);
+    mqtt.put("interfaces", interfaces);
+    Map<String, Object> protocols = new LinkedHashMap<>();
+    protocols.put("mqtt", mqtt);
+
+    ConfigurationProperties global = new ConfigurationProperties();
+    global.put("fallback", "fromGlobal");
+    ConfigurationProperties properties = new ConfigurationProperties();
+    properties.setGlobal(global);
+    properties.put("protocols", protocols);
+
+    // Walked without an index
+    assertEquals(10, properties.getByPath("protocols.mqtt.maxInFlight"));
+    assertEquals("interface2", properties.getByPath("protocols.mqtt.interfaces[2].name"));
+
+    properties.buildPathIndex();
+    assertEquals(10, properties.getByPath("protocols.mqtt.maxInFlight"));
+    assertEquals("interface1", properties.getByPath("protocols.mqtt.interfaces[1].name"));
+    assertEquals(1883, properties.getByPath("protocols.mqtt.interfaces[0].endPoint.port"));
+    assertEquals("fromGlobal", properties.getByPath("protocols.fallback"));
+    assertNull(properties.getByPath("protocols.mqtt.interfaces[5].name"));
+    assertNull(properties.getByPath("protocols.mqtt.maxInFlight.other"));
+    assertNull(properties.getByPath("unknown.path"));
+
+    properties.put("protocols", new LinkedHashMap<String, Object>());
+    assertNull(properties.getByPath("protocols.mqtt.maxInFlight"));
+  }
+
+  @Test
+  void jsonObjectValues() {
+    JsonObject jsonObject = new JsonObject();
+    jsonObject.addProperty("port", 1883);
+    jsonObject.addProperty("name", "mqtt");
+    ConfigurationProperties properties = new ConfigurationProperties();
+    properties.put("json", jsonObject);
+
+    Object first = properties.get("json");
+    assertInstanceOf(ConfigurationProperties.class, first);
+    assertSame(first, properties.get("json"));
+    ConfigurationProperties json = (ConfigurationProperties) first;
+    assertEquals(1883, json.getIntProperty("port", 0));
+    assertEquals("mqtt", json.getProperty("name"));
+  }
+
+  @Test
+  void lazySections() {
+    Map<String, Object> endPoint = new LinkedHashMap<>();
+    endPoint.put("port", 1883);
+    Map<String, Object> mqtt = new LinkedHashMap<>();
+    mqtt.put("name", "mqtt");
+    mqtt.put("endPoint", endPoint);
+    Map<String, Object> amqp = new LinkedHashMap<>();
+    amqp.put("name", "amqp");
+    Map<String, Object> globalMap = new LinkedHashMap<>();
+    globalMap.put("timeout", 10);
+
+    ConfigurationProperties properties = new ConfigurationProperties(true);
+    properties.setGlobal(new ConfigurationProperties(globalMap));
+    properties.put("mqtt", mqtt);
+    properties.put("interfaces", List.of(mqtt, amqp, "dropped"));
+    assertTrue(properties.isLazy());
+
+    ConfigurationProperties lazyMqtt = (ConfigurationProperties) properties.get("mqtt");
+    assertSame(lazyMqtt, properties.get("mqtt"));
+    assertTrue(lazyMqtt.isLazy());
+    assertEquals(10, lazyMqtt.getIntProperty("timeout", 0));
+    assertEquals(1883, ((ConfigurationProperties) lazyMqtt.get("endPoint")).getIntProperty("port", 0));
+    assertEquals(1883, properties.getByPath("mqtt.endPoint.port"));
+
+    List<?> interfaces = (List<?>) properties.get("interfaces");
+    assertEquals(2, interfaces.size());
+    assertEquals("amqp", ((ConfigurationProperties) interfaces.get(1)).getProperty("name"));
+    assertEquals(10, ((ConfigurationProperties) interfaces.get(1)).getIntProperty("timeout", 0));
+
+    ConfigurationProperties eager = new ConfigurationProperties();
+    eager.put("mqtt", mqtt);
+    assertEquals(eager.getMap(), new ConfigurationProperties(Map.of("mqtt", mqtt), true).getMap());
+    for (Map.Entry<String, Object> entry : properties.entrySet()) {
+      assertFalse(entry.getValue() instanceof LazySection);
+    }
+    assertSame(lazyMqtt, properties.entrySet().iterator().next().getValue());
+  }
+
+  @Test
+  void mergeChanges() {
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("port", 1883);
+    nested.put("host", "localhost");
+    ConfigurationProperties current = new ConfigurationProperties();
+    current.put("name", "server");
+    current.put("nested", nested);
+    current.put("old", true);
+    ConfigurationProperties child = (ConfigurationProperties) current.get("nested");
+
+    Map<String, Object> nestedUpdate = new LinkedHashMap<>(nested);
+    nestedUpdate.put("port", 1884);
+    ConfigurationProperties updated = new ConfigurationProperties();
+    updated.put("name", "server");
+    updated.put("nested", nestedUpdate);
+    updated.put("new", 1);
+
+    assertEquals(List.of("nested.port", "new", "old"), current.mergeChanges(updated));
+    assertSame(child, current.get("nested"));
+    assertEquals(1884, child.getIntProperty("port", 0));
+    assertFalse(current.containsKey("old"));
+    assertTrue(current.mergeChanges(updated).isEmpty());
+
+    assertEquals(1, current.remove("new"));
+    assertNull(current.remove("new"));
+  }
+}
@@ -24,6 +24,11 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class EnvironmentConfigTest {
 
@@ -40,4 +45,115 @@ class EnvironmentConfigTest {
     Assertions.assertNotNull(instance.translatePath("{{TEST}}"));
     Assertions.assertEquals(file.getAbsolutePath()+File.separator, instance.translatePath("{{TEST}}"));
   }
+
+  @Test
+  void templatesFollowRegistrations() throws IOException {
+    EnvironmentConfig instance = EnvironmentConfig.getInstance();
+    instance.clearAll();
+    System.setProperty("templateTest", "\"fromSystem\"");
+    Assertions.assertEquals("/data", instance.translatePath("{{TEMPLATE_HOME}}/data"));
+    Assertions.assertEquals("fromSystem-{{other}}", instance.scanForNonStandardSub("{{templateTest}}-{{other}}"));
+
+    File file = new File(".");
+    instance.registerPath(new EnvironmentPathLookup("TEMPLATE_HOME", file.getAbsolutePath(), false));
+    Assertions.assertEquals(file.getAbsolutePath() + File.separator + "data", instance.translatePath("{{TEMPLATE_HOME}}/data"));
+
+    System.setProperty("templateTest", "changed");
+    Assertions.assertEquals("changed/data", instance.translatePath("{{templateTest}}/data"));
+    Assertions.assertEquals("changed-{{other}}", instance.scanForNonStandardSub("{{templateTest}}-{{other}}"));
+    instance.clearAll();
+  }
+
+  @Test
+  void nestedVariablesAreExpanded() {
+    EnvironmentConfig instance = EnvironmentConfig.getInstance();
+    instance.clearAll();
+    System.setProperty("nestedOuter", "{{nestedInner}}/conf");
+    System.setProperty("nestedInner", "\"base\"");
+    try {
+      Assertions.assertEquals("base/conf/data", instance.translatePath("{{nestedOuter}}/data"));
+      System.setProperty("nestedInner", "moved");
+      Assertions.assertEquals("moved/conf/data", instance.translatePath("{{nestedOuter}}/data"));
+
+      // The non path substitution only replaces the first variable, as it always has
+      Assertions.assertEquals("{{nestedInner}}/conf", instance.scanForNonStandardSub("{{nestedOuter}}"));
+
+      // A value that refers to itself or cannot be resolved does not loop
+      System.setProperty("nestedSelf", "{{nestedSelf}}");
+      Assertions.assertEquals("{{nestedSelf}}", instance.translatePath("{{nestedSelf}}"));
+      Assertions.assertEquals("a}}{{b", instance.translatePath("a}}{{b"));
+    } finally {
+      System.clearProperty("nestedOuter");
+      System.clearProperty("nestedInner");
+      System.clearProperty("nestedSelf");
+      instance.clearAll();
+    }
+  }
+
+  @Test
+  void pathLookupChangesAreApplied() {
+    EnvironmentConfig instance = EnvironmentConfig.getInstance();
+    instance.clearAll();
+    Assertions.assertEquals("/data", instance.translatePath("{{lookupTest}}/data"));
+
+    instance.getPathLookups().put("lookupTest", "/changed");
+    Assertions.assertEquals("/changed/data", instance.translatePath("{{lookupTest}}/data"));
+    instance.getPathLookups().entrySet().iterator().next().setValue("/again");
+    Assertions.assertEquals("/again", instance.getPathLookups().get("lookupTest"));
+    Assertions.assertEquals("/again/data", instance.translatePath("{{lookupTest}}/data"));
+
+    Iterator<Map.Entry<String, String>> iterator = instance.getPathLookups().entrySet().iterator();
+    iterator.next();
+    iterator.remove();
+    Assertions.assertTrue(instance.getPathLookups().isEmpty());
+    Assertions.assertEquals("/data", instance.translatePath("{{lookupTest}}/data"));
+  }
+
+  @Test
+  void templatesCompiledDuringAChangeAreNotKept() throws InterruptedException {
+    EnvironmentConfig instance = EnvironmentConfig.getInstance();
+    instance.clearAll();
+    // The long tail widens the window between reading the path and caching the template
+    String tail = "/data".repeat(2000);
+    AtomicBoolean running = new AtomicBoolean(true);
+    List<Thread> translators = new ArrayList<>();
+    for (int x = 0; x < 4; x++) {
+      Thread translator = new Thread(() -> {
+        while (running.get()) {
+          instance.translatePath("{{raceTest}}" + tail);
+        }
+      });
+      translator.start();
+      translators.add(translator);
+    }
+    try {
+      // A template compiled against the old path and cached after the flush would be returned here
+      for (int x = 0; x < 5_000; x++) {
+        instance.getPathLookups().put("raceTest", "/dir" + x);
+        Assertions.assertEquals("/dir" + x + tail, instance.translatePath("{{raceTest}}" + tail));
+      }
+    } finally {
+      running.set(false);
+      for (Thread translator : translators) {
+        translator.join();
+      }
+      instance.clearAll();
+    }
+  }
+
+  @Test
+  void templateCacheIsBounded() {
+    EnvironmentConfig instance = EnvironmentConfig.getInstance();
+    instance.clearAll();
+    System.setProperty("boundedTest", "value");
+    try {
+      for (int x = 0; x < 5000; x++) {
+        Assertions.assertEquals("value/" + x, instance.translatePath("{{boundedTest}}/" + x));
+      }
+      Assertions.assertEquals("value/4999", instance.translatePath("{{boundedTest}}/4999"));
+    } finally {
+      System.clearProperty("boundedTest");
+      instance.clearAll();
+    }
+  }
 }
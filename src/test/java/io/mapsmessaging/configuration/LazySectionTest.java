@@ -0,0 +1,79 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazySectionTest {
+
+  @Test
+  void builtOnceAcrossThreads() throws Exception {
+    AtomicInteger builds = new AtomicInteger();
+    LazySection section = new LazySection(global -> {
+      builds.incrementAndGet();
+      ConfigurationProperties properties = new ConfigurationProperties();
+      properties.setGlobal(global);
+      return properties;
+    });
+    ConfigurationProperties global = new ConfigurationProperties();
+    section.setGlobal(global);
+    assertFalse(section.isMaterialised());
+
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Object>> results = new ArrayList<>();
+      for (int x = 0; x < threads; x++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return section.get();
+        }));
+      }
+      start.countDown();
+      Object first = results.get(0).get(10, TimeUnit.SECONDS);
+      for (Future<Object> result : results) {
+        assertSame(first, result.get(10, TimeUnit.SECONDS));
+      }
+      assertSame(global, ((ConfigurationProperties) first).getGlobal());
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, builds.get());
+    assertTrue(section.isMaterialised());
+    assertThrows(IllegalStateException.class, () -> section.setGlobal(null));
+  }
+
+  @Test
+  void resolvesOnlySections() {
+    LazySection section = new LazySection(global -> "built");
+    assertEquals("built", LazySection.resolve(section));
+    assertEquals("plain", LazySection.resolve("plain"));
+    assertNull(LazySection.resolve(null));
+  }
+}
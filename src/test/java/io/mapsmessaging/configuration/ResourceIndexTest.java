@@ -0,0 +1,211 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceIndexTest {
+
+  private Path directory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("resourceIndex");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  void unchangedJarIsServedFromIndex() throws IOException {
+    File jar = createJar("config.jar", "a.yaml", "b/c.yaml", "d.class");
+    ResourceIndex index = new ResourceIndex(null);
+    assertEquals(List.of("a.yaml", "b/c.yaml", "d.class"), index.getEntries(jar));
+
+    scramble(jar);
+    assertEquals(List.of("a.yaml", "b/c.yaml", "d.class"), index.getEntries(jar));
+
+    index.clear();
+    assertThrows(IOException.class, () -> index.getEntries(jar));
+  }
+
+  @Test
+  void changedJarIsRescanned() throws IOException {
+    File jar = createJar("config.jar", "a.yaml");
+    ResourceIndex index = new ResourceIndex(null);
+    assertEquals(List.of("a.yaml"), index.getEntries(jar));
+    createJar("config.jar", "a.yaml", "added.yaml");
+    assertEquals(List.of("a.yaml", "added.yaml"), index.getEntries(jar));
+  }
+
+  @Test
+  void unchangedDirectoryIsServedFromIndex() throws IOException {
+    Path sub = Files.createDirectories(directory.resolve("sub"));
+    Files.writeString(directory.resolve("a.yaml"), "a");
+    Files.writeString(sub.resolve("b.yaml"), "b");
+    ResourceIndex index = new ResourceIndex(null);
+    Set<String> expected = Set.of(canonical(directory.resolve("a.yaml")), canonical(sub.resolve("b.yaml")));
+    assertEquals(expected, Set.copyOf(index.getDirectoryEntries(directory.toFile())));
+
+    // Put the directory's time back, so only a walk would find the new file
+    FileTime walked = Files.getLastModifiedTime(sub);
+    Files.writeString(sub.resolve("hidden.yaml"), "c");
+    Files.setLastModifiedTime(sub, walked);
+    assertEquals(expected, Set.copyOf(index.getDirectoryEntries(directory.toFile())));
+
+    index.clear();
+    assertEquals(3, index.getDirectoryEntries(directory.toFile()).size());
+  }
+
+  @Test
+  void changedDirectoryIsWalkedAgain() throws IOException {
+    Path sub = Files.createDirectories(directory.resolve("sub"));
+    Files.writeString(sub.resolve("a.yaml"), "a");
+    ResourceIndex index = new ResourceIndex(null);
+    assertEquals(List.of(canonical(sub.resolve("a.yaml"))), index.getDirectoryEntries(directory.toFile()));
+
+    Files.writeString(sub.resolve("b.yaml"), "b");
+    assertEquals(Set.of(canonical(sub.resolve("a.yaml")), canonical(sub.resolve("b.yaml"))),
+        Set.copyOf(index.getDirectoryEntries(directory.toFile())));
+
+    Files.delete(sub.resolve("a.yaml"));
+    Files.delete(sub.resolve("b.yaml"));
+    Files.delete(sub);
+    assertTrue(index.getDirectoryEntries(directory.toFile()).isEmpty());
+  }
+
+  @Test
+  void indexIsPersisted() throws IOException {
+    File jar = createJar("config.jar", "a.yaml", "b/c.yaml");
+    File indexFile = directory.resolve("resources.idx").toFile();
+    ResourceIndex index = new ResourceIndex(indexFile);
+    index.getEntries(jar);
+    index.storeIfChanged();
+    assertTrue(indexFile.isFile());
+
+    scramble(jar);
+    ResourceIndex reloaded = new ResourceIndex(indexFile);
+    assertEquals(List.of("a.yaml", "b/c.yaml"), reloaded.getEntries(jar));
+  }
+
+  @Test
+  void jarsNoLongerLookedUpAreDropped() throws IOException {
+    File kept = createJar("kept.jar", "a.yaml");
+    File removed = createJar("removed.jar", "b.yaml");
+    File indexFile = directory.resolve("resources.idx").toFile();
+    ResourceIndex index = new ResourceIndex(indexFile);
+    index.getEntries(kept);
+    index.getEntries(removed);
+    index.storeIfChanged();
+
+    // Nothing was rescanned, but the removed jar must not be written back
+    ResourceIndex upgraded = new ResourceIndex(indexFile);
+    assertEquals(List.of("a.yaml"), upgraded.getEntries(kept));
+    upgraded.storeIfChanged();
+
+    scramble(kept);
+    scramble(removed);
+    ResourceIndex reloaded = new ResourceIndex(indexFile);
+    assertEquals(List.of("a.yaml"), reloaded.getEntries(kept));
+    assertThrows(IOException.class, () -> reloaded.getEntries(removed));
+  }
+
+  @Test
+  void corruptIndexIsIgnored() throws IOException {
+    File jar = createJar("config.jar", "a.yaml");
+    File indexFile = directory.resolve("resources.idx").toFile();
+    Files.write(indexFile.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+    ResourceIndex index = new ResourceIndex(indexFile);
+    assertEquals(List.of("a.yaml"), index.getEntries(jar));
+  }
+
+  @Test
+  void configIndexIsPreferred() throws IOException {
+    File jar = directory.resolve("indexed.jar").toFile();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+      zip.putNextEntry(new ZipEntry(ResourceList.CONFIG_INDEX));
+      zip.write("# generated\nconfig/a.yaml\n".getBytes());
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry("config/a.yaml"));
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry("config/b.yaml"));
+      zip.closeEntry();
+    }
+    File indexFile = directory.resolve("resources.idx").toFile();
+    ResourceIndex index = new ResourceIndex(indexFile);
+    assertEquals(List.of("config/a.yaml"), index.getConfigEntries(jar));
+    assertEquals(List.of(ResourceList.CONFIG_INDEX, "config/a.yaml", "config/b.yaml"), index.getEntries(jar));
+    index.storeIfChanged();
+
+    scramble(jar);
+    ResourceIndex reloaded = new ResourceIndex(indexFile);
+    assertEquals(List.of("config/a.yaml"), reloaded.getConfigEntries(jar));
+    assertEquals(3, reloaded.getEntries(jar).size());
+
+    File plain = createJar("plain.jar", "a.yaml", "b.class");
+    assertEquals(List.of("a.yaml", "b.class"), index.getConfigEntries(plain));
+  }
+
+  private File createJar(String name, String... entries) throws IOException {
+    File jar = directory.resolve(name).toFile();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (String entry : entries) {
+        zip.putNextEntry(new ZipEntry(entry));
+        zip.write(entry.getBytes());
+        zip.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  // Overwrites the jar so it can no longer be opened while keeping its size and modified time
+  private void scramble(File jar) throws IOException {
+    long lastModified = jar.lastModified();
+    Files.write(jar.toPath(), new byte[(int) jar.length()]);
+    assertTrue(jar.setLastModified(lastModified));
+  }
+
+  private static String canonical(Path path) throws IOException {
+    return path.toFile().getCanonicalPath();
+  }
+}
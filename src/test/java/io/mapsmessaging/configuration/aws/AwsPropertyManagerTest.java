@@ -29,6 +29,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
 
@@ -79,6 +80,19 @@ class AwsPropertyManagerTest {
     Assertions.assertNotNull(manager.getProperties());
   }
 
+  @DisplayName("Bulk read returns every key")
+  @Test
+  void bulkRead() throws IOException {
+    AwsPropertyManager propertyManager = new AwsPropertyManager("/test/storeTest");
+    propertyManager.getProperties().put("data", loadProperties());
+    propertyManager.storeAll("data");
+
+    AwsSsmApi awsSsmApi = new AwsSsmApi();
+    Map<String, String> values = awsSsmApi.getValues("/test/storeTest/");
+    Assertions.assertEquals(new HashSet<>(awsSsmApi.getKeys("/test/storeTest/")), values.keySet());
+    Assertions.assertNotNull(values.get("/test/storeTest/data"));
+  }
+
   @DisplayName("Ensure we can sve the config")
   @Test
   void copy() throws IOException {
@@ -0,0 +1,60 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+
+class ConsulBulkLoadTest {
+
+  private static ConsulStubServer server;
+
+  @BeforeAll
+  static void startServer() throws IOException {
+    server = new ConsulStubServer();
+    System.setProperty("ConsulUrl", server.getUrl());
+  }
+
+  @AfterAll
+  static void stopServer() {
+    ConsulManagerFactory.getInstance().stop();
+    server.close();
+    System.clearProperty("ConsulUrl");
+  }
+
+  @Test
+  void loadReadsThePrefixInOneRequest() {
+    for (int x = 0; x < 20; x++) {
+      server.put("bulk/doc" + x, "doc" + x + ":\n  index: " + x + "\n");
+    }
+    server.put("bulk/", null); // a folder key
+    ConsulManagerFactory.getInstance().start("bulkTest");
+    Assumptions.assumeTrue(ConsulManagerFactory.getInstance().getManager() != null);
+
+    ConsulPropertyManager manager = new ConsulPropertyManager("/bulk/");
+    int before = server.getRequests();
+    manager.load();
+    Assertions.assertEquals(1, server.getRequests() - before);
+    for (int x = 0; x < 20; x++) {
+      Assertions.assertEquals(x, manager.getProperties("doc" + x).getIntProperty("index", -1));
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul;
+
+import io.mapsmessaging.configuration.consul.ecwid.EcwidConsulManager;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ConsulKeyWatcherTest {
+
+  private static ConsulStubServer server;
+
+  @BeforeAll
+  static void startServer() throws IOException {
+    server = new ConsulStubServer();
+    System.setProperty("ConsulUrl", server.getUrl());
+  }
+
+  @AfterAll
+  static void stopServer() {
+    ConsulManagerFactory.getInstance().stop();
+    server.close();
+    System.clearProperty("ConsulUrl");
+  }
+
+  @Test
+  void onlyWrittenKeysAreReported() throws IOException {
+    ConsulServerApi api = new EcwidConsulManager("watchTest");
+    server.put("watch/one", "a: 1");
+    server.put("watch/two", "b: 2");
+
+    List<List<ConsulKeyValue>> updates = new ArrayList<>();
+    List<List<String>> removals = new ArrayList<>();
+    ConsulKeyWatcher watcher = new ConsulKeyWatcher("watch/", 1, () -> api, (updated, removed) -> {
+      updates.add(updated);
+      removals.add(removed);
+    });
+
+    watcher.poll();
+    Assertions.assertEquals(1, updates.size());
+    Assertions.assertEquals(List.of("watch/one", "watch/two"), updates.get(0).stream().map(ConsulKeyValue::key).toList());
+
+    server.put("watch/two", "b: 3");
+    watcher.poll();
+    Assertions.assertEquals(2, updates.size());
+    Assertions.assertEquals(1, updates.get(1).size());
+    Assertions.assertEquals("watch/two", updates.get(1).get(0).key());
+    Assertions.assertEquals("b: 3", updates.get(1).get(0).value());
+
+    // The watch response refreshed the value cache, so this read is not sent to the server
+    int requests = server.getRequests();
+    Assertions.assertEquals("b: 3", api.getValue("watch/two"));
+    Assertions.assertEquals(requests, server.getRequests());
+
+    // Nothing written, the blocking query times out and nothing is reported
+    watcher.poll();
+    Assertions.assertEquals(2, updates.size());
+
+    server.delete("watch/one");
+    watcher.poll();
+    Assertions.assertEquals(3, updates.size());
+    Assertions.assertTrue(updates.get(2).isEmpty());
+    Assertions.assertEquals(List.of("watch/one"), removals.get(2));
+  }
+
+  @Test
+  void propertyManagerAppliesWatchedChanges() throws InterruptedException {
+    server.put("managed/server", "server:\n  port: 1\n  name: test\n");
+    ConsulManagerFactory.getInstance().start("watchTest");
+    Assertions.assertNotNull(ConsulManagerFactory.getInstance().getManager());
+
+    ConsulPropertyManager manager = new ConsulPropertyManager("/managed/");
+    manager.load();
+    Assertions.assertEquals(1, manager.getProperties("server").getIntProperty("port", 0));
+
+    BlockingQueue<List<String>> changes = new LinkedBlockingQueue<>();
+    manager.addChangeListener((name, paths) -> changes.add(paths));
+    manager.startWatch(1);
+    try {
+      Assertions.assertTrue(manager.isWatching());
+      server.put("managed/server", "server:\n  port: 2\n  name: test\n");
+      Assertions.assertEquals(List.of("port"), changes.poll(10, TimeUnit.SECONDS));
+      Assertions.assertEquals(2, manager.getProperties("server").getIntProperty("port", 0));
+      Assertions.assertEquals(2, manager.getSnapshot("server").getIntProperty("port", 0));
+
+      server.delete("managed/server");
+      Assertions.assertEquals(Set.of("port", "name"), Set.copyOf(changes.poll(10, TimeUnit.SECONDS)));
+      Assertions.assertFalse(manager.contains("server"));
+    } finally {
+      manager.stopWatch();
+    }
+    Assertions.assertFalse(manager.isWatching());
+  }
+}
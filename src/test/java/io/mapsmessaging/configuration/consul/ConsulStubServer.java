@@ -0,0 +1,182 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Just enough of the Consul KV HTTP API to run the client against, key listings, single and
+ * recursive reads and blocking queries on <code>index</code> and <code>wait</code>.
+ */
+class ConsulStubServer implements AutoCloseable {
+
+  private static final String KV_PATH = "/v1/kv/";
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final TreeMap<String, Entry> values;
+  private long index;
+  private int requests;
+
+  ConsulStubServer() throws IOException {
+    values = new TreeMap<>();
+    index = 1;
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(KV_PATH, this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  String getUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  synchronized void put(String key, String value) {
+    index++;
+    Entry previous = values.get(key);
+    values.put(key, new Entry(value, previous != null ? previous.createIndex : index, index));
+    notifyAll();
+  }
+
+  synchronized void delete(String key) {
+    if (values.remove(key) != null) {
+      index++;
+      notifyAll();
+    }
+  }
+
+  synchronized int getRequests() {
+    return requests;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!exchange.getRequestMethod().equals("GET")) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      String key = exchange.getRequestURI().getPath().substring(KV_PATH.length());
+      while (key.startsWith("/")) {
+        key = key.substring(1);
+      }
+      Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      Object body;
+      long responseIndex;
+      synchronized (this) {
+        requests++;
+        if (query.containsKey("index")) {
+          awaitChange(Long.parseLong(query.get("index")), query.get("wait"));
+        }
+        responseIndex = index;
+        body = read(key, query);
+      }
+      exchange.getResponseHeaders().add("X-Consul-Index", Long.toString(responseIndex));
+      exchange.getResponseHeaders().add("X-Consul-Knownleader", "true");
+      exchange.getResponseHeaders().add("X-Consul-Lastcontact", "0");
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      byte[] json = new Gson().toJson(body).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, json.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(json);
+      }
+    }
+  }
+
+  private void awaitChange(long requested, String wait) {
+    long waitMillis = wait != null ? Long.parseLong(wait.replace("s", "")) * 1000L : 300_000L;
+    long deadline = System.currentTimeMillis() + waitMillis;
+    long remaining = waitMillis;
+    while (index <= requested && remaining > 0) {
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+  }
+
+  private Object read(String key, Map<String, String> query) {
+    boolean prefix = query.containsKey("recurse") || query.containsKey("keys");
+    List<Map<String, Object>> found = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
+    for (Map.Entry<String, Entry> entry : values.entrySet()) {
+      if (prefix ? entry.getKey().startsWith(key) : entry.getKey().equals(key)) {
+        keys.add(entry.getKey());
+        found.add(entry.getValue().toJson(entry.getKey()));
+      }
+    }
+    if (keys.isEmpty()) {
+      return null;
+    }
+    return query.containsKey("keys") ? keys : found;
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> map = new HashMap<>();
+    if (query != null) {
+      for (String parameter : query.split("&")) {
+        int idx = parameter.indexOf('=');
+        if (idx > 0) {
+          map.put(parameter.substring(0, idx), parameter.substring(idx + 1));
+        } else {
+          map.put(parameter, "");
+        }
+      }
+    }
+    return map;
+  }
+
+  private record Entry(String value, long createIndex, long modifyIndex) {
+
+    Map<String, Object> toJson(String key) {
+      Map<String, Object> json = new LinkedHashMap<>();
+      json.put("LockIndex", 0);
+      json.put("Key", key);
+      json.put("Flags", 0);
+      json.put("Value", value != null ? Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) : null);
+      json.put("CreateIndex", createIndex);
+      json.put("ModifyIndex", modifyIndex);
+      return json;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.consul.ecwid;
+
+import io.mapsmessaging.configuration.consul.ConsulKeyValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsulValueCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private ConsulValueCache createCache(int size) {
+    return new ConsulValueCache(size, 30, 5, TimeUnit.SECONDS, now::get);
+  }
+
+  @Test
+  void valuesExpire() {
+    ConsulValueCache cache = createCache(10);
+    cache.put("a", "value", 1, cache.readStamp());
+    assertEquals("value", cache.get("a").value());
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    assertNull(cache.get("a"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getExpirations());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void missingKeysAreCachedForTheNegativeTtl() {
+    ConsulValueCache cache = createCache(10);
+    cache.putMissing("missing", cache.readStamp());
+    ConsulValueCache.Cached cached = cache.get("missing");
+    assertNotNull(cached);
+    assertNull(cached.value());
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    assertNull(cache.get("missing"));
+  }
+
+  @Test
+  void olderModifyIndexDoesNotReplaceNewerValue() {
+    ConsulValueCache cache = createCache(10);
+    cache.put("a", "new", 5, cache.readStamp());
+    cache.put("a", "old", 3, cache.readStamp());
+    assertEquals("new", cache.get("a").value());
+    cache.put("a", "newer", 7, cache.readStamp());
+    assertEquals("newer", cache.get("a").value());
+    assertEquals(7, cache.get("a").modifyIndex());
+  }
+
+  @Test
+  void sizeIsBoundedLeastRecentlyUsedFirst() {
+    ConsulValueCache cache = createCache(3);
+    cache.put("a", "1", 1, cache.readStamp());
+    cache.put("b", "2", 2, cache.readStamp());
+    cache.put("c", "3", 3, cache.readStamp());
+    assertNotNull(cache.get("a")); // b is now the least recently used
+    cache.put("d", "4", 4, cache.readStamp());
+
+    assertEquals(3, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("d"));
+  }
+
+  @Test
+  void refreshReplacesThePrefix() {
+    ConsulValueCache cache = createCache(10);
+    cache.put("app/a", "1", 1, cache.readStamp());
+    cache.put("app/b", "2", 2, cache.readStamp());
+    cache.put("other/c", "3", 3, cache.readStamp());
+
+    cache.refresh("app/", List.of(new ConsulKeyValue("app/a", "10", 10)), cache.readStamp());
+    assertEquals("10", cache.get("app/a").value());
+    assertNull(cache.get("app/b"));
+    assertEquals("3", cache.get("other/c").value());
+  }
+
+  @Test
+  void invalidateRemovesTheKey() {
+    ConsulValueCache cache = createCache(10);
+    cache.put("a", "1", 1, cache.readStamp());
+    cache.invalidate("a");
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  void readsStartedBeforeAnInvalidateCannotCacheTheOldValue() {
+    ConsulValueCache cache = createCache(10);
+    cache.put("a", "v1", 5, cache.readStamp());
+    long slowRead = cache.readStamp();
+    long slowMissing = cache.readStamp();
+
+    cache.invalidate("a"); // this node wrote v2
+    cache.put("a", "v1", 5, slowRead);
+    assertNull(cache.get("a"));
+    cache.refresh("", List.of(new ConsulKeyValue("a", "v1", 5)), slowRead);
+    assertNull(cache.get("a"));
+
+    // A read started before the write may still have seen it
+    cache.put("a", "v2", 6, slowRead);
+    assertEquals("v2", cache.get("a").value());
+
+    cache.invalidate("a"); // and deleted it
+    cache.put("a", "v2", 6, slowRead);
+    cache.putMissing("a", slowMissing);
+    assertNull(cache.get("a"));
+    cache.putMissing("a", cache.readStamp());
+    assertNotNull(cache.get("a"));
+  }
+
+  @Test
+  void tombstonesExpire() {
+    ConsulValueCache cache = createCache(10);
+    long slowRead = cache.readStamp();
+    cache.invalidate("a"); // not cached, so no read from before the write is accepted
+    cache.put("a", "v2", 100, slowRead);
+    assertNull(cache.get("a"));
+    cache.put("a", "v2", 100, cache.readStamp());
+    assertEquals("v2", cache.get("a").value());
+
+    cache.invalidate("a");
+    now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    cache.put("a", "v1", 1, slowRead);
+    assertEquals("v1", cache.get("a").value());
+  }
+
+  @Test
+  void zeroSizeDisablesTheCache() {
+    ConsulValueCache cache = createCache(0);
+    assertFalse(cache.isEnabled());
+    cache.put("a", "1", 1, cache.readStamp());
+    cache.putMissing("b", cache.readStamp());
+    assertNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.file;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import io.mapsmessaging.configuration.PropertyManager;
+import io.mapsmessaging.configuration.PropertyManagerTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ParallelFilePropertyManagerTest extends PropertyManagerTest {
+
+  @Override
+  protected PropertyManager create() {
+    return new FileYamlPropertyManager(true);
+  }
+
+  @Test
+  void matchesSequentialLoad() {
+    PropertyManager sequential = new FileYamlPropertyManager(false);
+    sequential.load();
+    PropertyManager parallel = create();
+    parallel.load();
+
+    ConfigurationProperties expected = sequential.getProperties();
+    ConfigurationProperties actual = parallel.getProperties();
+    Assertions.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+    for (String key : expected.keySet()) {
+      ConfigurationProperties expectedConfig = sequential.getProperties(key);
+      ConfigurationProperties actualConfig = parallel.getProperties(key);
+      Assertions.assertEquals(new ArrayList<>(expectedConfig.keySet()), new ArrayList<>(actualConfig.keySet()));
+      Assertions.assertEquals(expectedConfig.getSource(), actualConfig.getSource());
+    }
+  }
+
+  @Test
+  void malformedResourceFailsInBothModes() {
+    List<String> resources = List.of("first.yaml", "broken.yaml", "last.yaml");
+    for (boolean parallel : new boolean[]{false, true}) {
+      InMemoryPropertyManager manager = new InMemoryPropertyManager(parallel);
+      // A scalar where a section is expected, the parse fails rather than the read
+      manager.documents.put("broken", "broken: 1\n");
+      Assertions.assertThrows(ClassCastException.class, () -> manager.loadResources(resources));
+      Assertions.assertTrue(manager.contains("first"), "parallel=" + parallel);
+      Assertions.assertFalse(manager.contains("broken"), "parallel=" + parallel);
+    }
+  }
+
+  @Test
+  void unreadableResourceIsSkippedInBothModes() {
+    List<String> resources = List.of("first.yaml", "missing.yaml", "last.yaml");
+    for (boolean parallel : new boolean[]{false, true}) {
+      InMemoryPropertyManager manager = new InMemoryPropertyManager(parallel);
+      manager.loadResources(resources);
+      Assertions.assertTrue(manager.contains("first"), "parallel=" + parallel);
+      Assertions.assertFalse(manager.contains("missing"), "parallel=" + parallel);
+      Assertions.assertTrue(manager.contains("last"), "parallel=" + parallel);
+    }
+  }
+
+  private static final class InMemoryPropertyManager extends FileYamlPropertyManager {
+    private final Map<String, String> documents = new HashMap<>(Map.of(
+        "first", "first:\n  value: 1\n",
+        "last", "last:\n  value: 2\n"));
+
+    private InMemoryPropertyManager(boolean parallel) {
+      super(parallel, false);
+    }
+
+    @Override
+    InputStream openResource(String propertyName) throws FileNotFoundException {
+      String document = documents.get(propertyName);
+      if (document == null) {
+        throw new FileNotFoundException("No such resource found " + propertyName);
+      }
+      return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
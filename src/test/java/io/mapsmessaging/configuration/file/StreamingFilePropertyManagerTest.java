@@ -0,0 +1,56 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.file;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import io.mapsmessaging.configuration.PropertyManager;
+import io.mapsmessaging.configuration.PropertyManagerTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+class StreamingFilePropertyManagerTest extends PropertyManagerTest {
+
+  @Override
+  protected PropertyManager create() {
+    return new FileYamlPropertyManager(false, true);
+  }
+
+  @Test
+  void matchesDocumentLoad() {
+    PropertyManager document = new FileYamlPropertyManager(false, false);
+    document.load();
+    PropertyManager streamed = create();
+    streamed.load();
+
+    ConfigurationProperties expected = document.getProperties();
+    ConfigurationProperties actual = streamed.getProperties();
+    Assertions.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+    for (String key : expected.keySet()) {
+      ConfigurationProperties expectedConfig = document.getProperties(key);
+      ConfigurationProperties actualConfig = streamed.getProperties(key);
+      Assertions.assertEquals(new ArrayList<>(expectedConfig.keySet()), new ArrayList<>(actualConfig.keySet()));
+      Assertions.assertEquals(expectedConfig.getProperty("name"), actualConfig.getProperty("name"));
+      Assertions.assertNull(actualConfig.getSource());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares two configuration trees entry by entry, including key order, value types and which maps
+ * have a global configuration. Load time stamps only need to be present on both sides.
+ */
+final class PropertiesAssert {
+
+  private PropertiesAssert() {
+  }
+
+  static void assertEquivalent(ConfigurationProperties expected, ConfigurationProperties actual) {
+    assertEquivalent(expected, actual, "");
+    if (expected.getGlobal() == null) {
+      assertNull(actual.getGlobal());
+    } else {
+      assertEquivalent(expected.getGlobal(), actual.getGlobal(), "global");
+    }
+  }
+
+  private static void assertEquivalent(Object expected, Object actual, String path) {
+    if (expected instanceof ConfigurationProperties expectedProperties) {
+      assertInstanceOf(ConfigurationProperties.class, actual, path);
+      ConfigurationProperties actualProperties = (ConfigurationProperties) actual;
+      assertEquals(List.copyOf(expectedProperties.keySet()), List.copyOf(actualProperties.keySet()), path);
+      List<Map.Entry<String, Object>> actualEntries = List.copyOf(actualProperties.entrySet());
+      int index = 0;
+      for (Map.Entry<String, Object> entry : expectedProperties.entrySet()) {
+        String key = entry.getKey();
+        Object expectedValue = entry.getValue();
+        Object actualValue = actualEntries.get(index++).getValue();
+        if (key.equals("loaded") && expectedValue instanceof Long) {
+          assertInstanceOf(Long.class, actualValue, path);
+        } else {
+          assertEquivalent(expectedValue, actualValue, path + "." + key);
+        }
+      }
+      // Both the inherited values and whether a global is set at all must match
+      assertEquals(expectedProperties.getGlobal() != null, actualProperties.getGlobal() != null, path);
+    } else if (expected instanceof List<?> expectedList) {
+      assertInstanceOf(List.class, actual, path);
+      List<?> actualList = (List<?>) actual;
+      assertEquals(expectedList.size(), actualList.size(), path);
+      for (int x = 0; x < expectedList.size(); x++) {
+        assertEquivalent(expectedList.get(x), actualList.get(x), path + "[" + x + "]");
+      }
+    } else {
+      assertEquals(expected, actual, path);
+      if (expected != null) {
+        assertEquals(expected.getClass(), actual.getClass(), path);
+      }
+    }
+  }
+}
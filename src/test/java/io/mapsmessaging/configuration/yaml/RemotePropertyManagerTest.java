@@ -0,0 +1,175 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.logging.LoggerFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemotePropertyManagerTest {
+
+  @Test
+  void bulkLoadReadsNoKeysIndividually() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.SUPPORTED);
+    manager.load();
+    assertEquals(0, manager.valueReads.get());
+    assertEquals(0, manager.keyListings.get());
+    assertLoaded(manager);
+  }
+
+  @Test
+  void unsupportedBulkLoadReadsEachKey() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.UNSUPPORTED);
+    manager.load();
+    assertEquals(2, manager.valueReads.get());
+    assertEquals(1, manager.keyListings.get());
+    assertLoaded(manager);
+  }
+
+  @Test
+  void failedBulkLoadFallsBackToEachKey() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.FAILING);
+    manager.load();
+    assertEquals(2, manager.valueReads.get());
+    assertLoaded(manager);
+  }
+
+  @Test
+  void concurrentLoadMergesInListedOrder() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.UNSUPPORTED);
+    List<String> expected = new ArrayList<>(List.of("mqtt", "amqp"));
+    for (int x = 0; x < 16; x++) {
+      manager.store.put("config/doc" + x, "doc" + x + ":\n  index: " + x + "\n");
+      expected.add("doc" + x);
+    }
+    // The first keys are the slowest to read, so they complete last
+    manager.slowKeys.addAll(List.of("config/mqtt", "config/amqp", "config/doc0"));
+    manager.setLoadParallelism(4);
+    manager.load();
+
+    assertEquals(18, manager.valueReads.get());
+    assertTrue(manager.maxConcurrentReads.get() > 1);
+    assertTrue(manager.maxConcurrentReads.get() <= 4);
+    assertEquals(expected, new ArrayList<>(manager.getProperties().keySet()));
+    assertLoaded(manager);
+    for (int x = 0; x < 16; x++) {
+      assertEquals(x, manager.getProperties("doc" + x).getIntProperty("index", -1));
+    }
+  }
+
+  @Test
+  void concurrentLoadSkipsFailedKeys() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.UNSUPPORTED);
+    manager.store.put("config/broken", "broken:\n  value: 1\n");
+    manager.failingKeys.add("config/broken");
+    manager.setLoadParallelism(3);
+    manager.load();
+    assertFalse(manager.contains("broken"));
+    assertLoaded(manager);
+  }
+
+  @Test
+  void invalidParallelismIsRejected() {
+    InMemoryPropertyManager manager = new InMemoryPropertyManager(Bulk.UNSUPPORTED);
+    assertEquals(1, manager.getLoadParallelism());
+    assertThrows(IllegalArgumentException.class, () -> manager.setLoadParallelism(0));
+  }
+
+  private static void assertLoaded(InMemoryPropertyManager manager) {
+    assertEquals(1883, manager.getProperties("mqtt").getIntProperty("port", 0));
+    assertEquals("localhost", manager.getProperties("amqp").getProperty("host"));
+    assertFalse(manager.contains(""));
+  }
+
+  enum Bulk {SUPPORTED, UNSUPPORTED, FAILING}
+
+  static class InMemoryPropertyManager extends RemotePropertyManager {
+
+    final Map<String, String> store = new LinkedHashMap<>();
+    final Set<String> slowKeys = new HashSet<>();
+    final Set<String> failingKeys = new HashSet<>();
+    final AtomicInteger valueReads = new AtomicInteger();
+    final AtomicInteger keyListings = new AtomicInteger();
+    final AtomicInteger maxConcurrentReads = new AtomicInteger();
+    private final AtomicInteger concurrentReads = new AtomicInteger();
+    private final Bulk bulk;
+
+    InMemoryPropertyManager(Bulk bulk) {
+      super("config/", LoggerFactory.getLogger(InMemoryPropertyManager.class));
+      this.bulk = bulk;
+      store.put("config/", null);
+      store.put("config/mqtt", "mqtt:\n  port: 1883\n");
+      store.put("config/amqp", "amqp:\n  host: localhost\n");
+    }
+
+    @Override
+    protected Map<String, String> getAllValues(String prefix) throws IOException {
+      if (bulk == Bulk.FAILING) {
+        throw new IOException("bulk read failed");
+      }
+      return bulk == Bulk.SUPPORTED ? new LinkedHashMap<>(store) : null;
+    }
+
+    @Override
+    protected String getValue(String key) throws IOException {
+      valueReads.incrementAndGet();
+      maxConcurrentReads.accumulateAndGet(concurrentReads.incrementAndGet(), Math::max);
+      try {
+        TimeUnit.MILLISECONDS.sleep(slowKeys.contains(key) ? 100 : 10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        concurrentReads.decrementAndGet();
+      }
+      if (failingKeys.contains(key)) {
+        throw new IOException("read failed");
+      }
+      return store.get(key);
+    }
+
+    @Override
+    protected List<String> getAllKeys(String prefix) {
+      keyListings.incrementAndGet();
+      List<String> keys = new ArrayList<>();
+      for (Map.Entry<String, String> entry : store.entrySet()) {
+        if (entry.getValue() != null) {
+          keys.add(entry.getKey());
+        }
+      }
+      return keys;
+    }
+
+    @Override
+    protected void putValue(String key, String value) {
+      store.put(key, value);
+    }
+
+    @Override
+    protected void deleteKey(String key) {
+      store.remove(key);
+    }
+  }
+}
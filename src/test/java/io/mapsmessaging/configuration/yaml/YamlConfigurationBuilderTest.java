@@ -0,0 +1,192 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unchecked")
+class YamlConfigurationBuilderTest {
+
+  @Test
+  void matchesJsonConversionForResources() throws IOException {
+    for (String resource : new String[]{"test1.yaml", "test2.yaml"}) {
+      String yaml;
+      try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+        assertNotNull(inputStream, resource);
+        yaml = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      String name = resource.substring(0, resource.indexOf('.'));
+      assertMatchesJson(name, yaml);
+    }
+  }
+
+  @Test
+  void numbersAreDoubles() {
+    ConfigurationProperties properties = assertMatchesJson("server", "server:\n  port: 1024\n  ratio: 0.5\n  big: 123456789012345678901234567890\n  enabled: true\n");
+    assertEquals(1024.0, properties.get("port"));
+    assertEquals(Boolean.TRUE, properties.get("enabled"));
+    assertInstanceOf(Long.class, properties.get("loaded"));
+  }
+
+  @Test
+  void nullsAreDropped() {
+    ConfigurationProperties properties = assertMatchesJson("server", "server:\n  empty:\n  name: test\n");
+    assertFalse(properties.containsKey("empty"));
+    assertEquals("test", properties.get("name"));
+  }
+
+  @Test
+  void singleEntryListsCollapse() {
+    String yaml = """
+        server:
+          single:
+            - value
+          singleMap:
+            - name: one
+              nested:
+                - inner
+          many:
+            - name: one
+              single:
+                - kept
+            - name: two
+            - scalar
+          scalars:
+            - a
+            - b
+          nestedList:
+            - - x
+        """;
+    ConfigurationProperties server = assertMatchesJson("server", yaml);
+    assertEquals("value", server.get("single"));
+    assertEquals("inner", ((ConfigurationProperties) server.get("singleMap")).get("nested"));
+    List<Object> many = (List<Object>) server.get("many");
+    assertEquals(2, many.size());
+    assertEquals(List.of(), ((ConfigurationProperties) many.get(0)).get("single"));
+    assertEquals(List.of(), server.get("scalars"));
+  }
+
+  @Test
+  void globalIsMovedAndShared() {
+    String yaml = """
+        server:
+          global:
+            timeout: 10
+            nested:
+              - deep
+          first:
+            name: one
+          list:
+            - name: a
+            - name: b
+          loaded: 1
+        """;
+    ConfigurationProperties properties = assertMatchesJson("server", yaml);
+    assertNotNull(properties.getGlobal());
+    assertEquals(10.0, properties.getGlobal().get("timeout"));
+    assertEquals("deep", properties.getGlobal().get("nested"));
+    assertFalse(properties.containsKey("global"));
+    assertInstanceOf(Long.class, properties.get("loaded"));
+    assertEquals(10.0, ((ConfigurationProperties) properties.get("first")).get("timeout"));
+    assertEquals(10.0, ((ConfigurationProperties) ((List<Object>) properties.get("list")).get(1)).get("timeout"));
+  }
+
+  @Test
+  void otherScalarsUseJsonShape() {
+    assertMatchesJson("server", "server:\n  set: !!set {a, b}\n  one: !!set {a}\n  bits: !!binary AQID\n  keys:\n    1: one\n    true: yes\n");
+  }
+
+  @Test
+  void nonMapDocumentIsEmpty() {
+    assertTrue(YamlConfigurationBuilder.build("server", new Yaml().load("- a\n- b\n")).isEmpty());
+    assertTrue(YamlConfigurationBuilder.build("server", new Yaml().load("just text")).isEmpty());
+  }
+
+  private static ConfigurationProperties assertMatchesJson(String name, String yaml) {
+    ConfigurationProperties expected = viaJson(name, yaml);
+    ConfigurationProperties actual = YamlConfigurationBuilder.build(name, new Yaml().load(yaml));
+    PropertiesAssert.assertEquivalent(expected, actual);
+    return actual;
+  }
+
+  // The conversion the builder replaces, Yaml to Json to maps and then into the configuration
+  private static ConfigurationProperties viaJson(String propertyName, String yaml) {
+    Map<String, Object> response = new YamlParser(new Yaml().load(yaml)).parse();
+    Object topLevel = response.get(propertyName);
+    if (topLevel instanceof Map map) {
+      map.put("loaded", System.currentTimeMillis());
+    }
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    for (Map.Entry<String, Object> item : response.entrySet()) {
+      Map<String, Object> entry = (Map<String, Object>) item.getValue();
+      if (entry.get("global") != null) {
+        Map<String, Object> global = (Map<String, Object>) entry.remove("global");
+        configurationProperties.setGlobal(new ConfigurationProperties(global));
+      }
+      configurationProperties.putAll(entry);
+    }
+    return configurationProperties;
+  }
+
+  @Test
+  void lazyBuildMatchesEager() throws IOException {
+    String yaml;
+    try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("test1.yaml")) {
+      assertNotNull(inputStream);
+      yaml = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    ConfigurationProperties lazy = YamlConfigurationBuilder.build("test1", new Yaml().load(yaml), true);
+    assertTrue(lazy.isLazy());
+    for (String key : lazy.keySet()) {
+      Object value = lazy.get(key);
+      assertSame(value, lazy.get(key));
+    }
+    PropertiesAssert.assertEquivalent(YamlConfigurationBuilder.build("test1", new Yaml().load(yaml)), lazy);
+
+    String withGlobal = """
+        server:
+          global:
+            timeout: 10
+          first:
+            nested:
+              name: one
+          list:
+            - name: a
+            - name: b
+        """;
+    ConfigurationProperties properties = YamlConfigurationBuilder.build("server", new Yaml().load(withGlobal), true);
+    ConfigurationProperties first = (ConfigurationProperties) properties.get("first");
+    assertEquals(10.0, first.get("timeout"));
+    assertNull(((ConfigurationProperties) first.get("nested")).get("timeout"));
+    assertEquals(10.0, ((ConfigurationProperties) ((List<Object>) properties.get("list")).get(0)).get("timeout"));
+    PropertiesAssert.assertEquivalent(assertMatchesJson("server", withGlobal), properties);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlPropertyManagerTest {
+
+  private static final String ORIGINAL = """
+      server:
+        global:
+          timeout: 10
+        mqtt:
+          port: 1883
+          name: mqtt
+          endPoint:
+            host: localhost
+        interfaces:
+          - name: a
+            port: 1
+          - name: b
+            port: 2
+        removed: true
+      """;
+
+  private static final String UPDATED = """
+      server:
+        global:
+          timeout: 20
+        mqtt:
+          port: 1884
+          name: mqtt
+          endPoint:
+            host: localhost
+        interfaces:
+          - name: a
+            port: 1
+          - name: b
+            port: 3
+        added: value
+      """;
+
+  @Test
+  void readerParseMatchesStringParse() {
+    String yaml = """
+        defaults: &defaults
+          timeout: 10
+          retries: 3
+          endPoint:
+            host: localhost
+        server:
+          <<: *defaults
+          retries: ~
+          timeout: 5
+          mqtt:
+            <<: *defaults
+            name: mqtt
+            endPoint: ~
+          interfaces:
+            - &first
+              name: a
+              port: 1
+            - <<: *first
+              name: b
+              port: ~
+        """;
+    TestPropertyManager manager = new TestPropertyManager();
+    ConfigurationProperties expected = manager.parseYaml("server", yaml);
+    ConfigurationProperties actual = manager.parseYaml("server", new StringReader(yaml));
+    PropertiesAssert.assertEquivalent(expected, actual);
+    assertFalse(((ConfigurationProperties) actual.get("mqtt")).containsKey("endPoint"));
+  }
+
+  @Test
+  void reloadAppliesOnlyTheChanges() {
+    TestPropertyManager manager = new TestPropertyManager();
+    manager.parseAndLoadYaml("server", ORIGINAL);
+    ConfigurationProperties server = manager.getProperties("server");
+    ConfigurationProperties mqtt = (ConfigurationProperties) server.get("mqtt");
+    ConfigurationProperties endPoint = (ConfigurationProperties) mqtt.get("endPoint");
+    List<?> interfaces = (List<?>) server.get("interfaces");
+    ConfigurationProperties global = server.getGlobal();
+    manager.getSnapshot("server");
+
+    List<List<String>> notified = new ArrayList<>();
+    manager.addChangeListener((name, paths) -> {
+      assertEquals("server", name);
+      notified.add(paths);
+    });
+    manager.addChangeListener((name, paths) -> {
+      throw new IllegalStateException("ignored");
+    });
+
+    List<String> changes = manager.reload("server", UPDATED);
+    assertEquals(List.of("mqtt.port", "interfaces[1].port", "added", "removed", "global.timeout"), changes);
+    assertEquals(List.of(changes), notified);
+
+    assertSame(server, manager.getProperties("server"));
+    assertSame(mqtt, server.get("mqtt"));
+    assertSame(endPoint, mqtt.get("endPoint"));
+    assertSame(interfaces.get(1), ((List<?>) server.get("interfaces")).get(1));
+    assertSame(global, server.getGlobal());
+    assertEquals(1884, mqtt.getIntProperty("port", 0));
+    assertEquals(20, mqtt.getIntProperty("timeout", 0));
+    assertEquals(3, server.getByPath("interfaces[1].port") instanceof Double port ? port.intValue() : 0);
+    assertFalse(server.containsKey("removed"));
+    assertEquals("value", server.getProperty("added"));
+    assertEquals(1884, manager.getSnapshot("server").getConfiguration("mqtt").getIntProperty("port", 0));
+    assertEquals(UPDATED, server.getSource());
+
+    notified.clear();
+    assertTrue(manager.reload("server", UPDATED).isEmpty());
+    assertTrue(notified.isEmpty());
+  }
+
+  @Test
+  void lazyReloadLeavesUnchangedSectionsDeferred() {
+    TestPropertyManager manager = new TestPropertyManager();
+    manager.setLazySections(true);
+    manager.parseAndLoadYaml("server", ORIGINAL);
+    ConfigurationProperties server = manager.getProperties("server");
+    assertTrue(server.isDeferred("mqtt"));
+    assertTrue(server.isDeferred("interfaces"));
+
+    List<String> changes = manager.reload("server", ORIGINAL
+        .replace("timeout: 10", "timeout: 20")
+        .replace("port: 2", "port: 3")
+        .replace("removed: true", "added:\n    name: added"));
+    assertEquals(List.of("interfaces[1].port", "added", "removed", "global.timeout"), changes);
+    assertTrue(server.isDeferred("mqtt"));
+    assertTrue(server.isDeferred("added"));
+    assertFalse(server.isDeferred("interfaces"));
+
+    // The sections built later still see the updated global
+    ConfigurationProperties mqtt = (ConfigurationProperties) server.get("mqtt");
+    assertEquals(20, mqtt.getIntProperty("timeout", 0));
+    assertEquals(20, ((ConfigurationProperties) server.get("added")).getIntProperty("timeout", 0));
+    assertEquals(3, ((ConfigurationProperties) ((List<?>) server.get("interfaces")).get(1)).getIntProperty("port", 0));
+
+    assertTrue(manager.reload("server", ORIGINAL.replace("port: 1883", "port: 1884")).contains("mqtt.port"));
+    assertSame(mqtt, server.get("mqtt"));
+    assertEquals(1884, mqtt.getIntProperty("port", 0));
+  }
+
+  @Test
+  void reloadReplacesWhatCannotBeMerged() {
+    TestPropertyManager manager = new TestPropertyManager();
+    manager.parseAndLoadYaml("server", ORIGINAL);
+    List<String> changes = manager.reload("server", """
+        server:
+          mqtt: disabled
+          interfaces:
+            - name: a
+              port: 1
+        """);
+    assertEquals(List.of("mqtt", "interfaces", "removed", "global.timeout"), changes);
+    ConfigurationProperties server = manager.getProperties("server");
+    assertEquals("disabled", server.getProperty("mqtt"));
+    assertEquals(1, ((ConfigurationProperties) server.get("interfaces")).getIntProperty("port", 0));
+    assertNotNull(server.getGlobal());
+    assertNull(((ConfigurationProperties) server.get("interfaces")).get("timeout"));
+  }
+
+  @Test
+  void reloadOfANewDocumentLoadsIt() {
+    TestPropertyManager manager = new TestPropertyManager();
+    assertEquals(List.of("mqtt", "interfaces", "removed"), manager.reload("server", ORIGINAL));
+    assertEquals(1883, ((ConfigurationProperties) manager.getProperties("server").get("mqtt")).getIntProperty("port", 0));
+  }
+
+  private static final class TestPropertyManager extends YamlPropertyManager {
+
+    @Override
+    public void load() {
+      // Loaded directly by the tests
+    }
+
+    @Override
+    protected List<String> getKeys(String lookup) {
+      return Collections.emptyList();
+    }
+  }
+}
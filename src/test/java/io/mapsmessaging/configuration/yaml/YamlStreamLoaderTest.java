@@ -0,0 +1,313 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.mapsmessaging.configuration.yaml;
+
+import io.mapsmessaging.configuration.ConfigurationProperties;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlStreamLoaderTest {
+
+  @Test
+  void matchesBuilderForResources() throws IOException {
+    for (String resource : new String[]{"test1.yaml", "test2.yaml"}) {
+      try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+        assertNotNull(inputStream, resource);
+        assertSame(resource.substring(0, resource.indexOf('.')), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  @Test
+  void scalarsAndNulls() {
+    assertSame("server", """
+        server:
+          port: 1024
+          hex: 0x10
+          ratio: 0.5
+          big: 123456789012345678901234567890
+          enabled: true
+          quoted: "true"
+          empty:
+          date: 2024-01-02
+          bits: !!binary AQID
+          keys:
+            1: one
+            true: yes
+        """);
+  }
+
+  @Test
+  void listsCollapseAsBefore() {
+    ConfigurationProperties properties = assertSame("server", """
+        server:
+          single:
+            - value
+          singleMap:
+            - name: one
+              nested:
+                - inner
+          many:
+            - name: one
+              single:
+                - kept
+            - name: two
+              child:
+                list: [a]
+            - scalar
+            - [nested]
+          scalars: [a, b]
+          emptyList: []
+          nullEntry: [~]
+          nestedList:
+            - - x
+        """);
+    assertEquals("value", properties.get("single"));
+    assertEquals(2, ((List<?>) properties.get("many")).size());
+  }
+
+  @Test
+  void globalAndLoadedAnywhereInTheSection() {
+    assertSame("server", """
+        other:
+          first:
+            name: before
+        server:
+          loaded: 1
+          list:
+            - name: a
+            - name: b
+          child:
+            name: c
+          global:
+            timeout: 10
+            nested:
+              - deep
+        third:
+          last:
+            name: after
+        """);
+    assertSame("server", """
+        server:
+          global: [{timeout: 5}]
+          loaded:
+          child:
+            name: c
+        """);
+  }
+
+  @Test
+  void anchorsAliasesAndMergeKeys() {
+    ConfigurationProperties properties = assertSame("server", """
+        server:
+          defaults: &defaults
+            timeout: 10
+            retries: [1]
+            nested:
+              value: x
+          extra: &extra
+            timeout: 20
+            colour: red
+          first:
+            name: first
+            <<: *defaults
+          second:
+            timeout: 5
+            <<: [*extra, *defaults]
+            colour: blue
+          copy: *defaults
+          single: &one [ {name: shared} ]
+          again: *one
+          list:
+            - &item
+              name: a
+            - *item
+          scalar: &s text
+          scalarAgain: *s
+        """);
+    ConfigurationProperties second = (ConfigurationProperties) properties.get("second");
+    assertEquals(5.0, second.get("timeout"));
+    assertEquals("blue", second.get("colour"));
+    assertEquals(1.0, second.get("retries"));
+  }
+
+  @Test
+  void mergedEntriesAreReplacedInPlace() {
+    ConfigurationProperties properties = assertSame("server", """
+        base: &base
+          name: base
+          list: [x]
+        defaults: &defaults
+          timeout: 10
+          retries: 3
+          colour: ~
+          nested:
+            value: x
+        server:
+          before: ~
+          <<: *defaults
+          retries: ~
+          after: 1
+          timeout: 5
+          colour: red
+          child:
+            name: ~
+            <<: [*defaults, {name: merged, extra: 1}]
+            nested: ~
+            timeout: 1
+        other:
+          <<: [*base, {base: ~}]
+          name: ~
+        <<: {more: {name: more}, server: ~, base: ~}
+        """);
+    assertEquals(5.0, properties.get("timeout"));
+    assertEquals("red", properties.get("colour"));
+    ConfigurationProperties child = (ConfigurationProperties) properties.get("child");
+    assertEquals(List.of("timeout", "retries", "extra"), List.copyOf(child.keySet()));
+  }
+
+  @Test
+  void repeatedKeysTakeTheirLastOccurrence() {
+    ConfigurationProperties properties = assertSame("server", """
+        server:
+          a: 1
+          b: 2
+          a: ~
+          c: 3
+          d: 4
+          c: 5
+          child:
+            x: 1
+            y: 2
+            x: ~
+            y: 3
+            <<: {z: 1, x: 5}
+            z: ~
+            w: 1
+            w: ~
+          merged:
+            k: 1
+            <<: {k: 2, m: 3}
+            k: 4
+            n: 1
+            <<: {n: 2, o: 3}
+            m: ~
+          anchored: &anchored
+            p: 1
+            q: 2
+            p: ~
+            q: 3
+          reused:
+            <<: *anchored
+            r: 1
+        """);
+    assertNull(properties.get("a"));
+    assertEquals(List.of("b", "d", "c", "child", "merged", "anchored", "reused", "loaded"), List.copyOf(properties.keySet()));
+    ConfigurationProperties child = (ConfigurationProperties) properties.get("child");
+    assertEquals(List.of("y"), List.copyOf(child.keySet()));
+    ConfigurationProperties merged = (ConfigurationProperties) properties.get("merged");
+    assertEquals(List.of("k", "n", "o"), List.copyOf(merged.keySet()));
+  }
+
+  @Test
+  void anchoredSectionsAndRoots() {
+    assertSame("server", """
+        base: &base
+          name: base
+          list: [x]
+        server:
+          <<: *base
+          port: 1
+        """);
+    assertSame("server", """
+        &root
+        server:
+          name: root
+        """);
+    assertSame("server", """
+        server:
+          - name: one
+        """);
+  }
+
+  @Test
+  void setsAndOrderedMaps() {
+    assertSame("server", """
+        server:
+          set: !!set {a, b}
+          one: !!set {a}
+          ordered: !!omap [ {b: 1}, {a: 2} ]
+          pairs: !!pairs [ {a: 1}, {a: 2} ]
+        """);
+  }
+
+  @Test
+  void nonMapDocuments() {
+    assertTrue(load("server", "").isEmpty());
+    assertTrue(load("server", "- a\n- b\n").isEmpty());
+    assertTrue(load("server", "just text").isEmpty());
+  }
+
+  @Test
+  void rejectsWhatTheLoaderRejects() {
+    assertThrows(YAMLException.class, () -> load("server", "a:\n  x: 1\n---\nb:\n  y: 2\n"));
+    assertThrows(YAMLException.class, () -> load("server", "server:\n  a: *missing\n"));
+    assertThrows(YAMLException.class, () -> load("server", "server:\n  a: !custom value\n"));
+    StringBuilder nested = new StringBuilder("server:\n");
+    for (int x = 0; x < 60; x++) {
+      nested.append("  ".repeat(x + 1)).append("n").append(x).append(":\n");
+    }
+    nested.append("  ".repeat(61)).append("v: 1\n");
+    assertThrows(YAMLException.class, () -> load("server", nested.toString()));
+  }
+
+  @Test
+  void largeDocumentsAreNotLimited() {
+    StringBuilder yaml = new StringBuilder("server:\n  entries:\n");
+    int count = 0;
+    while (yaml.length() < 3_500_000) {
+      yaml.append("    - name: entry").append(count).append("\n      value: ").append(count).append('\n');
+      count++;
+    }
+    ConfigurationProperties properties = load("server", yaml.toString());
+    assertEquals(count, ((List<?>) properties.get("entries")).size());
+  }
+
+  private static ConfigurationProperties load(String name, String yaml) {
+    return YamlStreamLoader.load(name, new StringReader(yaml));
+  }
+
+  private static ConfigurationProperties assertSame(String name, String yaml) {
+    ConfigurationProperties expected = YamlConfigurationBuilder.build(name, new Yaml().load(yaml));
+    ConfigurationProperties actual = load(name, yaml);
+    PropertiesAssert.assertEquivalent(expected, actual);
+    return actual;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+
+  @Test
+  void testSizesAreRoundedToPowersOfTwo() {
+    BufferPool pool = new BufferPool(4096, 2);
+    assertEquals(64, pool.acquire(1).length);
+    assertEquals(64, pool.acquire(64).length);
+    assertEquals(128, pool.acquire(65).length);
+    assertEquals(4096, pool.acquire(4000).length);
+    assertEquals(5000, pool.acquire(5000).length);
+  }
+
+  @Test
+  void testReleasedBuffersAreReused() {
+    BufferPool pool = new BufferPool(4096, 2);
+    byte[] first = pool.acquire(100);
+    pool.release(first);
+    assertSame(first, pool.acquire(120));
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  void testRetentionIsBounded() {
+    BufferPool pool = new BufferPool(1000, 2);
+    assertEquals(1024, pool.getMaxBufferSize());
+    pool.release(new byte[256]);
+    pool.release(new byte[256]);
+    pool.release(new byte[256]);
+    pool.release(new byte[300]);
+    pool.release(new byte[2048]);
+    pool.release(new byte[16]);
+    assertEquals(512, pool.getRetainedBytes());
+  }
+
+  @Test
+  void testTotalRetentionIsCapped() {
+    BufferPool pool = new BufferPool(4096, 4, 6000);
+    pool.release(new byte[4096]);
+    pool.release(new byte[4096]);
+    pool.release(new byte[1024]);
+    pool.release(new byte[1024]);
+    assertEquals(5120, pool.getRetainedBytes());
+
+    byte[] buffer = pool.acquire(4000);
+    assertEquals(1024, pool.getRetainedBytes());
+    pool.release(buffer);
+    pool.release(new byte[4096]);
+    assertEquals(5120, pool.getRetainedBytes());
+  }
+}
@@ -25,6 +25,17 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
 
@@ -133,9 +144,54 @@ class PersistentObjectTest extends PersistentObject {
     ByteArrayInputStream byteArrayInputStream =
         new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
 
-    // With current implementation: len < 0 -> ""
     String result = readString(byteArrayInputStream);
-    assertEquals("", result);
+    assertNull(result);
+  }
+
+  @Test
+  void testStringEncodingIsUtf8() throws IOException {
+    String[] values = {"ascii", "é漢字🚀 MQTT", "unpaired \uD800 high", "unpaired \uDC00 low", "trailing \uD83D"};
+    for (String value : values) {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      writeString(byteArrayOutputStream, value);
+
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      writeByteArray(expected, utf8);
+      assertArrayEquals(expected.toByteArray(), byteArrayOutputStream.toByteArray());
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(utf8.length + 4);
+      writeString(buffer, value);
+      buffer.flip();
+      assertEquals(new String(utf8, StandardCharsets.UTF_8), readString(buffer));
+    }
+  }
+
+  @Test
+  void testStringLargerThanScratchRoundTrip() throws IOException {
+    StringBuilder stringBuilder = new StringBuilder();
+    for (int i = 0; i < 40_000; i++) {
+      stringBuilder.append("漢");
+    }
+    String value = stringBuilder.toString();
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeString(byteArrayOutputStream, value);
+    writeString(byteArrayOutputStream, "after");
+    ByteArrayInputStream byteArrayInputStream =
+        new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+    assertEquals(value, readString(byteArrayInputStream));
+    assertEquals("after", readString(byteArrayInputStream));
+  }
+
+  @Test
+  void testByteBufferStringOverflowWritesNothing() {
+    ByteBuffer buffer = ByteBuffer.allocate(8);
+    assertThrows(BufferOverflowException.class, () -> writeString(buffer, "too long for the buffer"));
+    assertEquals(0, buffer.position());
+    writeString(buffer, null);
+    buffer.flip();
+    assertNull(readString(buffer));
   }
 
   @Test
@@ -296,6 +352,272 @@ class PersistentObjectTest extends PersistentObject {
     assertArrayEquals(expected, actual);
   }
 
+  @Test
+  void testPrimitivesWithPartialReads() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeInt(byteArrayOutputStream, 0x01020304);
+    writeLong(byteArrayOutputStream, 0x0102030405060708L);
+    assertArrayEquals(new byte[]{1, 2, 3, 4, 1, 2, 3, 4, 5, 6, 7, 8}, byteArrayOutputStream.toByteArray());
+
+    InputStream chunkedInputStream =
+        new ChunkedInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()), 3);
+    assertEquals(0x01020304, readInt(chunkedInputStream));
+    assertEquals(0x0102030405060708L, readLong(chunkedInputStream));
+  }
+
+  @Test
+  void testTruncatedPrimitiveThrows() {
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(new byte[]{1, 2, 3});
+    assertThrows(IOException.class, () -> readInt(byteArrayInputStream));
+    ByteArrayInputStream longInputStream = new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7});
+    assertThrows(IOException.class, () -> readLong(longInputStream));
+  }
+
+  @Test
+  void testByteBufferMatchesStreamLayout() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeInt(byteArrayOutputStream, 0x7F00FF00);
+    writeLong(byteArrayOutputStream, 0x0102030405060708L);
+    writeString(byteArrayOutputStream, "MixedTypes");
+    writeByteArray(byteArrayOutputStream, new byte[]{10, 20, 30, 40});
+    writeByteArray(byteArrayOutputStream, null);
+    byte[] expected = byteArrayOutputStream.toByteArray();
+
+    for (ByteBuffer buffer : new ByteBuffer[]{
+        ByteBuffer.allocate(expected.length),
+        ByteBuffer.allocateDirect(expected.length),
+        ByteBuffer.allocate(expected.length).order(ByteOrder.LITTLE_ENDIAN)}) {
+      writeInt(buffer, 0x7F00FF00);
+      writeLong(buffer, 0x0102030405060708L);
+      writeString(buffer, "MixedTypes");
+      writeByteArray(buffer, new byte[]{10, 20, 30, 40});
+      writeByteArray(buffer, null);
+      buffer.flip();
+
+      byte[] actual = new byte[buffer.remaining()];
+      buffer.duplicate().get(actual);
+      assertArrayEquals(expected, actual);
+
+      assertEquals(0x7F00FF00, readInt(buffer));
+      assertEquals(0x0102030405060708L, readLong(buffer));
+      assertEquals("MixedTypes", readString(buffer));
+      assertArrayEquals(new byte[]{10, 20, 30, 40}, readByteArray(buffer));
+      assertNull(readByteArray(buffer));
+      assertFalse(buffer.hasRemaining());
+    }
+  }
+
+  @Test
+  void testByteBufferReadsSlicedHeapBuffer() {
+    ByteBuffer backing = ByteBuffer.allocate(64);
+    backing.position(5);
+    ByteBuffer buffer = backing.slice();
+    writeString(buffer, "offset");
+    writeByteArray(buffer, new byte[]{1, 2, 3});
+    buffer.flip();
+    assertEquals("offset", readString(buffer));
+    ByteBuffer view = readByteArrayView(buffer);
+    assertNotNull(view);
+    assertEquals(3, view.remaining());
+    assertEquals(2, view.get(1));
+    assertTrue(view.isReadOnly());
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void testByteBufferTruncatedLength() {
+    ByteBuffer buffer = ByteBuffer.allocate(8);
+    writeInt(buffer, 100);
+    buffer.flip();
+    assertThrows(BufferUnderflowException.class, () -> readByteArray(buffer));
+  }
+
+  @Test
+  void testMappedFileRoundTrip() throws IOException {
+    Path file = Files.createTempFile("persistent", ".bin");
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, 1024);
+      writeLong(mapped, Long.MIN_VALUE);
+      writeString(mapped, "mapped");
+      writeByteArray(mapped, new byte[]{9, 8, 7});
+    }
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      assertEquals(Long.MIN_VALUE, readLong(inputStream));
+      assertEquals("mapped", readString(inputStream));
+      assertArrayEquals(new byte[]{9, 8, 7}, readByteArray(inputStream));
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      assertEquals(Long.MIN_VALUE, readLong(mapped));
+      assertEquals("mapped", readString(mapped));
+      assertArrayEquals(new byte[]{9, 8, 7}, readByteArray(mapped));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testVarIntAndVarLongRoundTrip() throws IOException {
+    long[] values = {0, 1, -1, 63, -64, 64, -65, 8191, 8192, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+    for (long value : values) {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      writeVarLong(byteArrayOutputStream, value);
+      writeVarInt(byteArrayOutputStream, (int) value);
+      ByteBuffer buffer = ByteBuffer.allocate(32);
+      writeVarLong(buffer, value);
+      writeVarInt(buffer, (int) value);
+      buffer.flip();
+
+      byte[] encoded = byteArrayOutputStream.toByteArray();
+      byte[] buffered = new byte[buffer.remaining()];
+      buffer.duplicate().get(buffered);
+      assertArrayEquals(encoded, buffered);
+
+      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(encoded);
+      assertEquals(value, readVarLong(byteArrayInputStream));
+      assertEquals((int) value, readVarInt(byteArrayInputStream));
+      assertEquals(value, readVarLong(buffer));
+      assertEquals((int) value, readVarInt(buffer));
+    }
+  }
+
+  @Test
+  void testVarIntEncodedSizes() throws IOException {
+    assertEquals(1, varLongSize(0));
+    assertEquals(1, varLongSize(-1));
+    assertEquals(1, varLongSize(63));
+    assertEquals(2, varLongSize(64));
+    assertEquals(5, varLongSize(Integer.MIN_VALUE));
+    assertEquals(10, varLongSize(Long.MIN_VALUE));
+  }
+
+  @Test
+  void testVarStringAndByteArrayRoundTrip() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeVarString(byteArrayOutputStream, "compact é漢字🚀");
+    writeVarString(byteArrayOutputStream, null);
+    writeVarString(byteArrayOutputStream, "");
+    writeVarByteArray(byteArrayOutputStream, new byte[]{1, 2, 3});
+    writeVarByteArray(byteArrayOutputStream, null);
+    byte[] encoded = byteArrayOutputStream.toByteArray();
+    assertEquals("compact é漢字🚀".getBytes(StandardCharsets.UTF_8).length + 1 + 1 + 1 + 4 + 1, encoded.length);
+
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(encoded);
+    assertEquals("compact é漢字🚀", readVarString(byteArrayInputStream));
+    assertNull(readVarString(byteArrayInputStream));
+    assertEquals("", readVarString(byteArrayInputStream));
+    assertArrayEquals(new byte[]{1, 2, 3}, readVarByteArray(byteArrayInputStream));
+    assertNull(readVarByteArray(byteArrayInputStream));
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length);
+    writeVarString(buffer, "compact é漢字🚀");
+    writeVarString(buffer, null);
+    writeVarString(buffer, "");
+    writeVarByteArray(buffer, new byte[]{1, 2, 3});
+    writeVarByteArray(buffer, null);
+    buffer.flip();
+    assertEquals("compact é漢字🚀", readVarString(buffer));
+    assertNull(readVarString(buffer));
+    assertEquals("", readVarString(buffer));
+    assertArrayEquals(new byte[]{1, 2, 3}, readVarByteArray(buffer));
+    assertNull(readVarByteArray(buffer));
+  }
+
+  @Test
+  void testMalformedVarInt() {
+    byte[] malformed = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+    assertThrows(IOException.class, () -> readVarInt(new ByteArrayInputStream(malformed)));
+    assertThrows(IllegalStateException.class, () -> readVarInt(ByteBuffer.wrap(malformed)));
+    assertThrows(IOException.class, () -> readVarLong(new ByteArrayInputStream(new byte[]{(byte) 0x80})));
+  }
+
+  @Test
+  void testFormatHeader() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeFormatHeader(byteArrayOutputStream, FORMAT_COMPACT);
+    writeVarLong(byteArrayOutputStream, 42);
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+    assertEquals(FORMAT_COMPACT, readFormatHeader(byteArrayInputStream));
+    assertEquals(42, readVarLong(byteArrayInputStream));
+
+    ByteBuffer buffer = ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+    assertEquals(FORMAT_COMPACT, readFormatHeader(buffer));
+    assertEquals(42, readVarLong(buffer));
+  }
+
+  @Test
+  void testLegacyFileWithoutFormatHeader() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeInt(byteArrayOutputStream, 0x12345678);
+    writeString(byteArrayOutputStream, "legacy");
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+    assertEquals(FORMAT_LEGACY, readFormatHeader(byteArrayInputStream));
+    assertEquals(0x12345678, readInt(byteArrayInputStream));
+    assertEquals("legacy", readString(byteArrayInputStream));
+
+    ByteBuffer buffer = ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+    assertEquals(FORMAT_LEGACY, readFormatHeader(buffer));
+    assertEquals(0, buffer.position());
+
+    ByteArrayInputStream shortStream = new ByteArrayInputStream(new byte[]{1, 2});
+    assertEquals(FORMAT_LEGACY, readFormatHeader(shortStream));
+    assertEquals(2, shortStream.available());
+
+    InputStream noMark = new ChunkedInputStream(new ByteArrayInputStream(new byte[8]), 8);
+    assertThrows(IOException.class, () -> readFormatHeader(noMark));
+  }
+
+  @Test
+  void testReadIntoSuppliedBuffer() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeByteArray(byteArrayOutputStream, new byte[]{1, 2, 3});
+    writeByteArray(byteArrayOutputStream, null);
+    writeByteArray(byteArrayOutputStream, new byte[20]);
+    writeString(byteArrayOutputStream, "next");
+    writeInt(byteArrayOutputStream, 3);
+    writeInt(byteArrayOutputStream, 0x04050607);
+
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+    byte[] buffer = new byte[8];
+    assertEquals(3, readByteArray(byteArrayInputStream, buffer));
+    assertEquals(3, buffer[2]);
+    assertEquals(-1, readByteArray(byteArrayInputStream, buffer));
+    assertThrows(IOException.class, () -> readByteArray(byteArrayInputStream, buffer));
+    assertEquals("next", readString(byteArrayInputStream));
+
+    assertEquals(3, readInt(byteArrayInputStream));
+    readFullBuffer(byteArrayInputStream, buffer, 4, 4);
+    assertArrayEquals(new byte[]{4, 5, 6, 7}, Arrays.copyOfRange(buffer, 4, 8));
+    assertThrows(IndexOutOfBoundsException.class, () -> readFullBuffer(byteArrayInputStream, buffer, 6, 4));
+  }
+
+  @Test
+  void testPooledReads() throws IOException {
+    BufferPool pool = new BufferPool(1024, 2);
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeByteArray(byteArrayOutputStream, new byte[]{1, 2, 3});
+    writeString(byteArrayOutputStream, "pooled é");
+    writeByteArray(byteArrayOutputStream, null);
+
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+    ByteBuffer pooled = readByteArray(byteArrayInputStream, pool);
+    assertNotNull(pooled);
+    assertEquals(3, pooled.remaining());
+    assertEquals(2, pooled.get(1));
+    pool.release(pooled.array());
+    assertEquals(64, pool.getRetainedBytes());
+
+    assertEquals("pooled é", readString(byteArrayInputStream, pool));
+    assertEquals(64, pool.getRetainedBytes());
+    assertNull(readByteArray(byteArrayInputStream, pool));
+  }
+
+  private int varLongSize(long value) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeVarLong(byteArrayOutputStream, value);
+    return byteArrayOutputStream.size();
+  }
+
   private static class ChunkedInputStream extends InputStream {
 
     private final ByteArrayInputStream delegate;
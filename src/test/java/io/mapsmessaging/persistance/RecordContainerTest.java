@@ -0,0 +1,243 @@
+/*
+ *  Copyright [ 2020 - 2024 ] Matthew Buckton
+ *  Copyright [ 2024 - 2025 ] MapsMessaging B.V.
+ *
+ *  Licensed under the Apache License, Version 2.0 with the Commons Clause
+ *  (the "License"); you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      https://commonsclause.com/
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.mapsmessaging.persistance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecordContainerTest extends PersistentObject {
+
+  private File file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("records", ".bin").toFile();
+    Files.delete(file.toPath());
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Test
+  void testAppendAcrossReopen() throws IOException {
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(1, "first"));
+      writer.append(encode(2, "second"));
+      writer.sync();
+    }
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(3, "third"));
+    }
+    List<String> records = readAll(Files.newInputStream(file.toPath()));
+    assertEquals(List.of("1:first", "2:second", "3:third"), records);
+  }
+
+  @Test
+  void testTornTailIsTruncated() throws IOException {
+    long goodEnd;
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(1, "first"));
+      writer.append(encode(2, "second"));
+      goodEnd = writer.size();
+      writer.append(encode(3, "torn record"));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      assertEquals(goodEnd, writer.size());
+      writer.append(encode(4, "after"));
+    }
+    assertEquals(List.of("1:first", "2:second", "4:after"), readAll(Files.newInputStream(file.toPath())));
+  }
+
+  @Test
+  void testCorruptFrameIsSkipped() throws IOException {
+    long secondFrame;
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(1, "first"));
+      secondFrame = writer.size();
+      writer.append(encode(2, "second"));
+      writer.append(encode(3, "third"));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(secondFrame + 14);
+      raf.write(0x55);
+    }
+    try (RecordContainerReader reader = new RecordContainerReader(Files.newInputStream(file.toPath()))) {
+      assertEquals("1:first", decode(reader.readRecord()));
+      assertEquals("3:third", decode(reader.readRecord()));
+      assertNull(reader.readRecord());
+      assertEquals(1, reader.getCorruptFrames());
+      assertTrue(reader.getSkippedBytes() > 0);
+    }
+  }
+
+  @Test
+  void testDamagedLengthResyncs() throws IOException {
+    long secondFrame;
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(1, "first"));
+      secondFrame = writer.size();
+      writer.append(encode(2, "second"));
+      writer.append(encode(3, "third"));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(secondFrame + 4);
+      raf.writeInt(1000);
+    }
+    assertEquals(List.of("1:first", "3:third"), readAll(Files.newInputStream(file.toPath())));
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(4, "fourth"));
+    }
+    assertEquals(List.of("1:first", "3:third", "4:fourth"), readAll(Files.newInputStream(file.toPath())));
+  }
+
+  @Test
+  void testTornLargeFrameResyncs() throws IOException {
+    int bigSize = 4 * 1024 * 1024;
+    byte[] big = new byte[bigSize];
+    Arrays.fill(big, (byte) 0x11);
+    long bigFrame;
+    long afterBig;
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      writer.append(encode(1, "first"));
+      bigFrame = writer.size();
+      writer.append(big);
+      afterBig = writer.size();
+      for (int x = 2; x < 50; x++) {
+        writer.append(encode(x, "record" + x));
+      }
+    }
+
+    // Cut the large frame short, as if the write was torn and later appends carried on after it
+    byte[] data = Files.readAllBytes(file.toPath());
+    int kept = (int) bigFrame + 12 + 1024 * 1024;
+    byte[] torn = new byte[data.length - (int) (afterBig - kept)];
+    System.arraycopy(data, 0, torn, 0, kept);
+    System.arraycopy(data, (int) afterBig, torn, kept, data.length - (int) afterBig);
+    Files.write(file.toPath(), torn);
+
+    List<String> expected = new ArrayList<>();
+    expected.add("1:first");
+    for (int x = 2; x < 50; x++) {
+      expected.add(x + ":record" + x);
+    }
+    long start = System.nanoTime();
+    try (RecordContainerReader reader = new RecordContainerReader(Files.newInputStream(file.toPath()))) {
+      List<String> records = new ArrayList<>();
+      byte[] record;
+      while ((record = reader.readRecord()) != null) {
+        records.add(decode(record));
+      }
+      assertEquals(expected, records);
+      assertEquals(1, reader.getCorruptFrames());
+      assertEquals(kept - bigFrame, reader.getSkippedBytes());
+      assertEquals(torn.length, reader.getValidEnd());
+    }
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      assertEquals(torn.length, writer.size());
+    }
+    // Recovery is a single pass over the damaged bytes, well inside this even on a slow machine
+    assertTrue(System.nanoTime() - start < 10_000_000_000L);
+  }
+
+  @Test
+  void testInvalidHeader() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeInt(byteArrayOutputStream, 0x01020304);
+    writeInt(byteArrayOutputStream, 1);
+    byte[] data = byteArrayOutputStream.toByteArray();
+    assertThrows(IOException.class, () -> new RecordContainerReader(new ByteArrayInputStream(data)));
+
+    Files.write(file.toPath(), data);
+    assertThrows(IOException.class, () -> new RecordContainerWriter(file));
+    assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+  }
+
+  @Test
+  void testOversizedRecordIsRejected() throws IOException {
+    byte[] oversized = new byte[65];
+    try (RecordContainerWriter writer = new RecordContainerWriter(file, 64)) {
+      writer.append(encode(1, "first"));
+      long end = writer.size();
+      assertThrows(IOException.class, () -> writer.append(oversized));
+      assertThrows(IOException.class, () -> writer.append(new byte[128], 10, 100));
+      assertEquals(end, writer.size());
+      writer.append(encode(2, "second"));
+    }
+    try (RecordContainerWriter writer = new RecordContainerWriter(file, 64)) {
+      writer.append(encode(3, "third"));
+    }
+    try (RecordContainerReader reader = new RecordContainerReader(Files.newInputStream(file.toPath()), 64)) {
+      assertEquals("1:first", decode(reader.readRecord()));
+      assertEquals("2:second", decode(reader.readRecord()));
+      assertEquals("3:third", decode(reader.readRecord()));
+      assertNull(reader.readRecord());
+      assertEquals(0, reader.getCorruptFrames());
+    }
+  }
+
+  @Test
+  void testEmptyContainer() throws IOException {
+    try (RecordContainerWriter writer = new RecordContainerWriter(file)) {
+      assertEquals(8, writer.size());
+    }
+    assertTrue(readAll(Files.newInputStream(file.toPath())).isEmpty());
+  }
+
+  private byte[] encode(int id, String text) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    writeVarInt(byteArrayOutputStream, id);
+    writeVarString(byteArrayOutputStream, text);
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private String decode(byte[] record) throws IOException {
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(record);
+    return readVarInt(byteArrayInputStream) + ":" + readVarString(byteArrayInputStream);
+  }
+
+  private List<String> readAll(InputStream inputStream) throws IOException {
+    List<String> records = new ArrayList<>();
+    try (RecordContainerReader reader = new RecordContainerReader(inputStream)) {
+      byte[] record;
+      while ((record = reader.readRecord()) != null) {
+        records.add(decode(record));
+      }
+    }
+    return records;
+  }
+}